@@ -0,0 +1,157 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Closed-loop load for hosts without k6: a fixed number of clients, each sending its next request as soon as the
+// previous one is answered, running the same mixes as library.js and loans.js. Requests started during the warm-up
+// are not counted. Failures are counted by status code, 0 standing for a request that got no response.
+// Usage: java loadtest/ClosedLoop.java <books|loans> <base url> <clients> <seconds> <warm-up seconds>
+public class ClosedLoop {
+    private static final Pattern BOOK = Pattern.compile("\"id\":\"([^\"]+)\",\"title\"");
+    private static final Pattern LOAN = Pattern.compile(
+            "\"id\":\"([^\"]+)\",\"bookId\":\"([^\"]+)\",\"userId\":\"([^\"]+)\"");
+    private static final Pattern CREATED_ID = Pattern.compile("\"data\":\\{\"id\":\"([^\"]+)\"");
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String baseUrl;
+    private final List<String[]> fixtures = new ArrayList<>();
+
+    private ClosedLoop(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mix = args[0];
+        ClosedLoop load = new ClosedLoop(args[1]);
+        int clients = Integer.parseInt(args[2]);
+        long seconds = Long.parseLong(args[3]);
+        long warmUp = Long.parseLong(args[4]);
+
+        Task task = switch (mix) {
+            case "books" -> load.fixtures("/books?size=100", BOOK)::books;
+            case "loans" -> load.fixtures("/loans?returned=false&size=100", LOAN)::loans;
+            default -> throw new IllegalArgumentException("Unknown mix " + mix);
+        };
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmUp);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+        ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<>();
+        Map<Integer, LongAdder> failures = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    List<Long> own = new ArrayList<>();
+                    while (System.nanoTime() < end) {
+                        long sent = System.nanoTime();
+                        int status;
+                        try {
+                            status = task.run(ThreadLocalRandom.current());
+                        } catch (Exception ex) {
+                            status = 0;
+                        }
+                        if (sent >= measureFrom) {
+                            own.add(System.nanoTime() - sent);
+                            if (status < 200 || status >= 300) {
+                                failures.computeIfAbsent(status, code -> new LongAdder()).increment();
+                            }
+                        }
+                    }
+                    latencies.add(own.stream().mapToLong(Long::longValue).toArray());
+                });
+            }
+        }
+
+        long[] sorted = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        Map<Integer, Long> failed = new TreeMap<>();
+        failures.forEach((status, count) -> failed.put(status, count.sum()));
+        long served = sorted.length - failed.values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf("mix=%s clients=%d requests=%d failed=%s throughput=%.0f/s served=%.0f/s p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms%n",
+                mix, clients, sorted.length, failed, sorted.length / (double) seconds, served / (double) seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99), percentile(sorted, 1.0));
+    }
+
+    private ClosedLoop fixtures(String path, Pattern pattern) throws Exception {
+        Matcher matcher = pattern.matcher(get(path).body());
+        while (matcher.find()) {
+            String[] groups = new String[matcher.groupCount()];
+            for (int i = 0; i < groups.length; i++) {
+                groups[i] = matcher.group(i + 1);
+            }
+            fixtures.add(groups);
+        }
+        if (fixtures.isEmpty()) {
+            throw new IllegalStateException("No fixtures found at " + path);
+        }
+        return this;
+    }
+
+    // library.js: a book by ID or the first page of books, half and half.
+    private int books(ThreadLocalRandom random) throws Exception {
+        String path = random.nextBoolean()
+                ? "/books/" + fixtures.get(random.nextInt(fixtures.size()))[0]
+                : "/books?size=20";
+        return get(path).statusCode();
+    }
+
+    // loans.js: a user's loaned books, a loan by ID, an open-loan count, or a checkout followed by its return. A
+    // checkout refused because no copy is left counts as answered.
+    private int loans(ThreadLocalRandom random) throws Exception {
+        String[] loan = fixtures.get(random.nextInt(fixtures.size()));
+        double dice = random.nextDouble();
+        if (dice < 0.5) {
+            return get("/loans/user/" + loan[2] + "?size=20").statusCode();
+        } else if (dice < 0.75) {
+            return get("/loans/" + loan[0]).statusCode();
+        } else if (dice < 0.9) {
+            return get("/loans/open/count?userId=" + loan[2]).statusCode();
+        }
+        String today = LocalDate.now().toString();
+        HttpResponse<String> created = send(HttpRequest.newBuilder(URI.create(baseUrl + "/loans"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"bookId\":\"" + loan[1] + "\",\"userId\":\"" + loan[2] +
+                        "\",\"loanDate\":\"" + today + "\"}")));
+        if (created.statusCode() != 201) {
+            return created.statusCode() == 409 ? 200 : created.statusCode();
+        }
+        Matcher id = CREATED_ID.matcher(created.body());
+        if (!id.find()) {
+            return 0;
+        }
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/loans/" + id.group(1) + "/return?returnDate=" + today))
+                .PUT(HttpRequest.BodyPublishers.noBody())).statusCode();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * quantile))] / 1e6;
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        int run(ThreadLocalRandom random) throws Exception;
+    }
+}
@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+# Runs the same loan mix against the servlet stack and the reactive profile and keeps both summaries. Uses k6 when it
+# is installed, and otherwise ClosedLoop.java at 16, 64 and 256 clients. Requires the dev Postgres database.
+# Usage: loadtest/compare-stacks.sh [peak requests per second]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+PEAK_RATE="${1:-1000}"
+RESULTS=loadtest/results
+mkdir -p "$RESULTS"
+
+./mvnw -q -DskipTests package
+JAR=$(ls target/library-*.jar | grep -v plain | head -n 1)
+
+for stack in servlet reactive; do
+    profiles=dev
+    [ "$stack" = reactive ] && profiles=dev,reactive
+    # Every request comes from this one client, so the per-client rate limit is lifted out of the way, and the
+    # concurrency limit is pinned so that each stack is measured rather than the load shedding in front of it.
+    java -jar "$JAR" --spring.profiles.active="$profiles" \
+        --library.rate-limit.requests-per-second=1000000 --library.rate-limit.burst=1000000 \
+        --library.load-shedding.initial-limit=1000000 --library.load-shedding.min-limit=1000000 \
+        --library.load-shedding.max-limit=1000000 \
+        > "$RESULTS/$stack.log" 2>&1 &
+    app=$!
+    trap 'kill $app 2>/dev/null || true' EXIT
+    until curl -sf http://localhost:8080/actuator/health > /dev/null; do sleep 1; done
+
+    if command -v k6 > /dev/null; then
+        k6 run -e PEAK_RATE="$PEAK_RATE" --summary-export "$RESULTS/$stack.json" loadtest/loans.js || true
+    else
+        for clients in 16 64 256; do
+            java loadtest/ClosedLoop.java loans http://localhost:8080 "$clients" 30 10
+        done | tee "$RESULTS/$stack.txt"
+    fi
+    curl -s http://localhost:8080/actuator/prometheus \
+        | grep -E '^(hikaricp_connections_pending|r2dbc_pool_pending_connections|jvm_threads_live|process_cpu_usage)' \
+        > "$RESULTS/$stack-pool.txt" || true
+
+    kill $app
+    wait $app 2>/dev/null || true
+done
+
+command -v k6 > /dev/null || exit 0
+for stack in servlet reactive; do
+    echo "== $stack"
+    jq -r '.metrics.http_req_duration | "p95=\(.["p(95)"])ms p99=\(.["p(99)"] // "n/a")ms max=\(.max)ms"' "$RESULTS/$stack.json"
+    jq -r '.metrics.http_req_failed | "failed=\(.value)"' "$RESULTS/$stack.json"
+    jq -r '.metrics.iterations | "throughput=\(.rate)/s"' "$RESULTS/$stack.json"
+done
@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Runs the same book mix against platform threads and virtual threads and keeps both summaries. Uses k6 when it is
+# installed, and otherwise ClosedLoop.java at 16, 64 and 256 clients. Requires the dev Postgres database.
+# Usage: loadtest/compare.sh [peak requests per second]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+PEAK_RATE="${1:-2000}"
+RESULTS=loadtest/results
+mkdir -p "$RESULTS"
+
+./mvnw -q -DskipTests package
+JAR=$(ls target/library-*.jar | grep -v plain | head -n 1)
+
+for mode in platform virtual; do
+    profiles=dev
+    [ "$mode" = virtual ] && profiles=dev,virtual-threads
+    # Every request comes from this one client, so the per-client rate limit is lifted out of the way, and the
+    # concurrency limit is pinned so that each mode is measured rather than the load shedding in front of it.
+    java -jar "$JAR" --spring.profiles.active="$profiles" \
+        --library.rate-limit.requests-per-second=1000000 --library.rate-limit.burst=1000000 \
+        --library.load-shedding.initial-limit=1000000 --library.load-shedding.min-limit=1000000 \
+        --library.load-shedding.max-limit=1000000 \
+        > "$RESULTS/$mode.log" 2>&1 &
+    app=$!
+    trap 'kill $app 2>/dev/null || true' EXIT
+    until curl -sf http://localhost:8080/actuator/health > /dev/null; do sleep 1; done
+
+    if command -v k6 > /dev/null; then
+        k6 run -e PEAK_RATE="$PEAK_RATE" --summary-export "$RESULTS/$mode.json" loadtest/library.js || true
+    else
+        for clients in 16 64 256; do
+            java loadtest/ClosedLoop.java books http://localhost:8080 "$clients" 30 10
+        done | tee "$RESULTS/$mode.txt"
+    fi
+    curl -s http://localhost:8080/actuator/prometheus | grep -E '^(hikaricp_connections_pending|library_db_admission_queued|jvm_threads_live)' \
+        > "$RESULTS/$mode-pool.txt" || true
+
+    kill $app
+    wait $app 2>/dev/null || true
+done
+
+command -v k6 > /dev/null || exit 0
+for mode in platform virtual; do
+    echo "== $mode"
+    jq -r '.metrics.http_req_duration | "p95=\(.["p(95)"])ms p99=\(.["p(99)"] // "n/a")ms max=\(.max)ms"' "$RESULTS/$mode.json"
+    jq -r '.metrics.http_req_failed | "failed=\(.value)"' "$RESULTS/$mode.json"
+    jq -r '.metrics.iterations | "throughput=\(.rate)/s"' "$RESULTS/$mode.json"
+done
@@ -0,0 +1,41 @@
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const PEAK_RATE = parseInt(__ENV.PEAK_RATE || '2000', 10);
+
+export const options = {
+    scenarios: {
+        burst: {
+            executor: 'ramping-arrival-rate',
+            startRate: 50,
+            timeUnit: '1s',
+            preAllocatedVUs: 500,
+            maxVUs: 5000,
+            stages: [
+                { target: PEAK_RATE / 4, duration: '30s' },
+                { target: PEAK_RATE, duration: '30s' },
+                { target: PEAK_RATE, duration: '60s' },
+                { target: 0, duration: '10s' },
+            ],
+        },
+    },
+    summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        http_req_duration: ['p(99)<500'],
+    },
+};
+
+export function setup() {
+    const page = http.get(`${BASE_URL}/books?size=100`).json('data.items') || [];
+    return { bookIds: page.map((book) => book.id) };
+}
+
+export default function (data) {
+    const res = data.bookIds.length > 0 && Math.random() < 0.5
+        ? http.get(`${BASE_URL}/books/${data.bookIds[Math.floor(Math.random() * data.bookIds.length)]}`,
+            { tags: { name: '/books/{id}' } })
+        : http.get(`${BASE_URL}/books?size=20`, { tags: { name: '/books' } });
+    check(res, { 'status is 200': (r) => r.status === 200 });
+}
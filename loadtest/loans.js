@@ -0,0 +1,60 @@
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const PEAK_RATE = parseInt(__ENV.PEAK_RATE || '1000', 10);
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+
+export const options = {
+    scenarios: {
+        burst: {
+            executor: 'ramping-arrival-rate',
+            startRate: 50,
+            timeUnit: '1s',
+            preAllocatedVUs: 500,
+            maxVUs: 5000,
+            stages: [
+                { target: PEAK_RATE / 4, duration: '30s' },
+                { target: PEAK_RATE, duration: '30s' },
+                { target: PEAK_RATE, duration: '60s' },
+                { target: 0, duration: '10s' },
+            ],
+        },
+    },
+    summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        http_req_duration: ['p(99)<500'],
+    },
+};
+
+// Open loans of books that still have copies, so the checkout and return cycle below keeps succeeding.
+export function setup() {
+    const page = http.get(`${BASE_URL}/loans?returned=false&size=100`).json('data.items') || [];
+    return { loans: page };
+}
+
+export default function (data) {
+    const loan = data.loans[Math.floor(Math.random() * data.loans.length)];
+    const dice = Math.random();
+    let res;
+    if (dice < 0.5) {
+        res = http.get(`${BASE_URL}/loans/user/${loan.userId}?size=20`, { tags: { name: '/loans/user/{id}' } });
+    } else if (dice < 0.75) {
+        res = http.get(`${BASE_URL}/loans/${loan.id}`, { tags: { name: '/loans/{id}' } });
+    } else if (dice < 0.9) {
+        res = http.get(`${BASE_URL}/loans/open/count?userId=${loan.userId}`, { tags: { name: '/loans/open/count' } });
+    } else {
+        const today = new Date().toISOString().slice(0, 10);
+        res = http.post(`${BASE_URL}/loans`,
+            JSON.stringify({ bookId: loan.bookId, userId: loan.userId, loanDate: today }),
+            Object.assign({ tags: { name: '/loans' } }, JSON_HEADERS));
+        if (res.status === 201) {
+            res = http.put(`${BASE_URL}/loans/${res.json('data.id')}/return?returnDate=${today}`, null,
+                { tags: { name: '/loans/{id}/return' } });
+        } else if (res.status === 409) {
+            return;
+        }
+    }
+    check(res, { 'status is 2xx': (r) => r.status >= 200 && r.status < 300 });
+}
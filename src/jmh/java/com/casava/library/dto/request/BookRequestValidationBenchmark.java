@@ -0,0 +1,63 @@
+package com.casava.library.dto.request;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookRequestValidationBenchmark {
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private BookRequestDTO validRequest;
+    private BookRequestDTO invalidIsbnRequest;
+    private BookRequestDTO hyphenatedIsbnRequest;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validRequest = request("9780201616224");
+        hyphenatedIsbnRequest = request("978-0-201-61622-4");
+        invalidIsbnRequest = request("978-0-201-61622-4-0000");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BookRequestDTO>> validRequest() {
+        return validator.validate(validRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BookRequestDTO>> hyphenatedIsbn() {
+        return validator.validate(hyphenatedIsbnRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BookRequestDTO>> invalidIsbn() {
+        return validator.validate(invalidIsbnRequest);
+    }
+
+    private static BookRequestDTO request(String isbn) {
+        BookRequestDTO request = new BookRequestDTO();
+        request.setTitle("The Pragmatic Programmer");
+        request.setAuthor("Andrew Hunt");
+        request.setPublishedYear(1999);
+        request.setIsbn(isbn);
+        request.setCopiesAvailable(3);
+        return request;
+    }
+}
@@ -0,0 +1,75 @@
+package com.casava.library.dto.response;
+
+import com.casava.library.advice.InternalCode;
+import com.casava.library.util.JsonEnvelope;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.casava.library.constant.Constants.SUCCESS_MESSAGE;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private CursorPageResponseDTO<BookResponseDTO> page;
+    private ApiResponseDTO<CursorPageResponseDTO<BookResponseDTO>> response;
+    private byte[] encodedPage;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<BookResponseDTO> books = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            BookResponseDTO book = new BookResponseDTO();
+            book.setId(UUID.randomUUID());
+            book.setTitle("Book title " + i);
+            book.setAuthor("Author " + i);
+            book.setPublishedYear(1990 + i % 30);
+            book.setIsbn(String.format("978%010d", i));
+            book.setCopiesAvailable(i % 5 + 1);
+            books.add(book);
+        }
+        page = new CursorPageResponseDTO<>(books, books.size(), true, "cursor");
+        response = new ApiResponseDTO<>(true, SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, page);
+        try {
+            encodedPage = objectMapper.writeValueAsBytes(page);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Benchmark
+    public ApiResponseDTO<CursorPageResponseDTO<BookResponseDTO>> constructResponse() {
+        return new ApiResponseDTO<>(true, SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, page);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] constructAndSerializeResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(
+                new ApiResponseDTO<>(true, SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, page));
+    }
+
+    @Benchmark
+    public byte[] spliceCachedResponse() {
+        return JsonEnvelope.success(encodedPage);
+    }
+}
@@ -0,0 +1,110 @@
+package com.casava.library.dto.response;
+
+import com.casava.library.advice.InternalCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static com.casava.library.constant.Constants.SUCCESS_MESSAGE;
+
+// Encoding cost and payload size of a 100-item list response per negotiated format, with and without the gzip
+// compression Tomcat applies above the size threshold. Payload sizes are printed at the end of each trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"books", "loans"})
+    private String payload;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private ApiResponseDTO<?> response;
+    private int encodedSize;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            default -> Jackson2ObjectMapperBuilder.json();
+        };
+        // As configured by Spring Boot for the server's converters.
+        objectMapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        Random random = new Random(42);
+        List<Object> items = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            items.add(payload.equals("books") ? book(random, i) : loan(random, i));
+        }
+        response = new ApiResponseDTO<>(true, SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001,
+                new CursorPageResponseDTO<>(items, items.size(), true, "MDAwMTRkZjUtNDExZi00MDNm"));
+    }
+
+    @TearDown
+    public void printSize() {
+        System.out.printf("%n%s as %s%s: %d bytes%n", payload, format, gzip ? " + gzip" : "", encodedSize);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(32 * 1024);
+        try (OutputStream out = gzip ? new GZIPOutputStream(buffer) : buffer) {
+            objectMapper.writeValue(out, response);
+        }
+        byte[] body = buffer.toByteArray();
+        encodedSize = body.length;
+        return body;
+    }
+
+    private static BookResponseDTO book(Random random, int i) {
+        BookResponseDTO book = new BookResponseDTO();
+        book.setId(new UUID(random.nextLong(), random.nextLong()));
+        book.setTitle("The " + word(random) + " of " + word(random) + " " + (100_000 + i));
+        book.setAuthor(word(random) + " " + word(random));
+        book.setPublishedYear(1900 + random.nextInt(125));
+        book.setIsbn(String.format("978%010d", random.nextInt(1_000_000_000)));
+        book.setCopiesAvailable(random.nextInt(6));
+        return book;
+    }
+
+    private static LoanResponseDTO loan(Random random, int i) {
+        LoanResponseDTO loan = new LoanResponseDTO();
+        loan.setId(new UUID(random.nextLong(), random.nextLong()));
+        loan.setBookId(new UUID(random.nextLong(), random.nextLong()));
+        loan.setUserId(new UUID(random.nextLong(), random.nextLong()));
+        loan.setLoanDate(LocalDate.of(2024, 1, 1).plusDays(random.nextInt(300)));
+        if (i % 3 == 0) {
+            loan.setReturnDate(loan.getLoanDate().plusDays(random.nextInt(30)));
+        } else if (i % 3 == 1) {
+            loan.setFine(new BigDecimal("0.25").multiply(BigDecimal.valueOf(random.nextInt(80))));
+        }
+        return loan;
+    }
+
+    private static String word(Random random) {
+        String[] words = {"Ocean", "Glass", "Winter", "Garden", "Shadow", "River", "Silent", "Iron", "Hunt", "Chinua"};
+        return words[random.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,148 @@
+package com.casava.library.entity;
+
+import com.casava.library.util.UuidV7;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Insert throughput into a loans-shaped table keyed by random (v4) or time-ordered (v7) UUIDs, on PostgreSQL, since
+// the B-tree is what differs. The table is preloaded so the index is past its first few levels; each operation
+// commits a batch of 100 loans, like a bulk checkout. At the end of each trial the primary key index size and the
+// WAL written per row are printed. Connection settings come from -Dbenchmark.jdbc.url, .user and .password.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(4)
+@Fork(1)
+public class UuidKeyInsertBenchmark {
+    private static final int BATCH_SIZE = 100;
+    private static final String URL = System.getProperty("benchmark.jdbc.url",
+            "jdbc:postgresql://localhost:5432/casava-library?reWriteBatchedInserts=true");
+    private static final String USER = System.getProperty("benchmark.jdbc.user", "postgres");
+    private static final String PASSWORD = System.getProperty("benchmark.jdbc.password", "postgres-password");
+
+    @Param({"random", "v7"})
+    private String keys;
+
+    @Param({"1000000"})
+    private int preloadedRows;
+
+    private String table;
+    private final AtomicLong insertedRows = new AtomicLong();
+    private String walPositionAfterPreload;
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private Connection connection;
+        private PreparedStatement insert;
+
+        @Setup(Level.Trial)
+        public void open(UuidKeyInsertBenchmark benchmark) throws SQLException {
+            connection = DriverManager.getConnection(URL, USER, PASSWORD);
+            connection.setAutoCommit(false);
+            insert = connection.prepareStatement(insertSql(benchmark.table));
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        table = "uuid_key_benchmark_" + keys;
+        try (Connection connection = DriverManager.getConnection(URL, USER, PASSWORD);
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + table);
+            statement.execute("create table " + table + " (id uuid primary key, book_id uuid not null, " +
+                    "user_id uuid not null, loan_date date not null, return_date date, fine numeric(10, 2), " +
+                    "version bigint not null default 0)");
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(insertSql(table))) {
+                for (int row = 1; row <= preloadedRows; row++) {
+                    addRow(insert, nextId());
+                    if (row % 10_000 == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+            connection.setAutoCommit(true);
+            statement.execute("vacuum analyze " + table);
+            statement.execute("checkpoint");
+            walPositionAfterPreload = queryString(statement, "select pg_current_wal_lsn()::text");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, USER, PASSWORD);
+             Statement statement = connection.createStatement()) {
+            long rows = preloadedRows + insertedRows.get();
+            long indexBytes = queryLong(statement, "select pg_relation_size('" + table + "_pkey')");
+            long walBytes = queryLong(statement, "select pg_wal_lsn_diff(pg_current_wal_lsn(), '"
+                    + walPositionAfterPreload + "')::bigint");
+            System.out.printf("%n%s keys: %,d rows, primary key index %,d bytes (%.1f per row), %.0f WAL bytes per inserted row%n",
+                    keys, rows, indexBytes, (double) indexBytes / rows, (double) walBytes / Math.max(insertedRows.get(), 1));
+            statement.execute("drop table " + table);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertLoans(Writer writer) throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            addRow(writer.insert, nextId());
+        }
+        writer.insert.executeBatch();
+        writer.connection.commit();
+        insertedRows.addAndGet(BATCH_SIZE);
+    }
+
+    private UUID nextId() {
+        return keys.equals("v7") ? UuidV7.next() : UUID.randomUUID();
+    }
+
+    private static String insertSql(String table) {
+        return "insert into " + table + " (id, book_id, user_id, loan_date) values (?, ?, ?, ?)";
+    }
+
+    private static void addRow(PreparedStatement insert, UUID id) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        insert.setObject(1, id);
+        insert.setObject(2, new UUID(random.nextLong(), random.nextLong()));
+        insert.setObject(3, new UUID(random.nextLong(), random.nextLong()));
+        insert.setDate(4, Date.valueOf(LocalDate.now().minusDays(random.nextInt(365))));
+        insert.addBatch();
+    }
+
+    private static long queryLong(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static String queryString(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.casava.library.service.serviceImpl;
+
+import com.casava.library.dto.request.BookRequestDTO;
+import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.LoanResponseDTO;
+import com.casava.library.entity.Book;
+import com.casava.library.entity.Loan;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+    private Book book;
+    private Loan loan;
+    private BookRequestDTO bookRequest;
+
+    @Setup
+    public void setUp() {
+        book = new Book();
+        book.setId(UUID.randomUUID());
+        book.setTitle("The Pragmatic Programmer");
+        book.setAuthor("Andrew Hunt");
+        book.setPublishedYear(1999);
+        book.setIsbn("9780201616224");
+        book.setCopiesAvailable(3);
+
+        loan = new Loan();
+        loan.setId(UUID.randomUUID());
+        loan.setBookId(book.getId());
+        loan.setUserId(UUID.randomUUID());
+        loan.setLoanDate(LocalDate.of(2024, 1, 15));
+
+        bookRequest = new BookRequestDTO();
+        bookRequest.setTitle(book.getTitle());
+        bookRequest.setAuthor(book.getAuthor());
+        bookRequest.setPublishedYear(book.getPublishedYear());
+        bookRequest.setIsbn(book.getIsbn());
+        bookRequest.setCopiesAvailable(book.getCopiesAvailable());
+    }
+
+    @Benchmark
+    public BookResponseDTO bookToResponse() {
+        return LoanServiceImpl.getBookResponseDTO(book);
+    }
+
+    @Benchmark
+    public LoanResponseDTO loanToResponse() {
+        return LoanServiceImpl.getLoanResponseDTO(loan);
+    }
+
+    @Benchmark
+    public Book bookRequestToEntity() {
+        return BookServiceImpl.getBookEntity(bookRequest);
+    }
+}
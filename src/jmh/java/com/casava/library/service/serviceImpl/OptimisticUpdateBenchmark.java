@@ -0,0 +1,97 @@
+package com.casava.library.service.serviceImpl;
+
+import com.casava.library.LibraryApplication;
+import com.casava.library.dto.request.BookRequestDTO;
+import com.casava.library.entity.Book;
+import com.casava.library.repository.BookRepository;
+import com.casava.library.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Concurrent staff edits through BookService.updateBook against an in-memory H2 database. With one hot book every
+// writer collides and leans on the jittered retries; with 64 books collisions are rare. "conflicts" counts edits
+// that still lost after every retry and would have been answered with 409.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 6, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Threads(8)
+@Fork(1)
+public class OptimisticUpdateBenchmark {
+    @Param({"1", "64"})
+    public int hotBooks;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private final List<Book> books = new ArrayList<>();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long updated;
+        public long conflicts;
+        private long edits;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            updated = 0;
+            conflicts = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=benchmark",
+                        "--spring.datasource.url=jdbc:h2:mem:optimistic-benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.flyway.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.datasource.hikari.maximum-pool-size=16",
+                        "--logging.level.root=WARN");
+        bookService = context.getBean(BookService.class);
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        for (int i = 0; i < hotBooks; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setAuthor("Author " + i);
+            book.setPublishedYear(2000);
+            book.setIsbn("978000000" + String.format("%04d", i));
+            book.setCopiesAvailable(5);
+            books.add(bookRepository.save(book));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void updateBook(Outcomes outcomes) {
+        Book book = books.get(ThreadLocalRandom.current().nextInt(hotBooks));
+        // Every edit changes the title; an edit that changes nothing is not written and cannot conflict.
+        BookRequestDTO edit = new BookRequestDTO();
+        edit.setTitle(book.getTitle() + " #" + Thread.currentThread().threadId() + "-" + outcomes.edits++);
+        edit.setAuthor(book.getAuthor());
+        edit.setPublishedYear(book.getPublishedYear());
+        edit.setIsbn(book.getIsbn());
+        edit.setCopiesAvailable(book.getCopiesAvailable());
+        try {
+            bookService.updateBook(book.getId(), edit, null);
+            outcomes.updated++;
+        } catch (OptimisticLockingFailureException ex) {
+            outcomes.conflicts++;
+        }
+    }
+}
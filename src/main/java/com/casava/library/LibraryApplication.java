@@ -1,9 +1,12 @@
 package com.casava.library;
 
+import com.casava.library.config.LibraryRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(LibraryRuntimeHints.class)
 public class LibraryApplication {
 
 	public static void main(String[] args) {
@@ -1,51 +1,89 @@
 package com.casava.library.advice;
+import com.casava.library.exception.PreconditionFailedException;
 import com.casava.library.exception.ResourceAlreadyExistException;
+import com.casava.library.exception.ResourceConflictException;
 import com.casava.library.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import java.util.HashMap;
 import java.util.Map;
 
+import static com.casava.library.constant.Constants.CONCURRENT_UPDATE_MESSAGE;
 import static com.casava.library.constant.Constants.ERROR_MESSAGE;
+import static com.casava.library.constant.Constants.ERRORS_METRIC;
 
 @ControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionAdvice {
+    private final MeterRegistry meterRegistry;
 
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleResourceNotFound(ResourceNotFoundException ex) {
+        recordError(InternalCode.CASAVA_LIB_003);
         ErrorResponse errorResponse = new ErrorResponse(false, InternalCode.CASAVA_LIB_003, ERROR_MESSAGE + ex.getMessage(), null);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
     @ExceptionHandler(ResourceAlreadyExistException.class)
     public ResponseEntity<ErrorResponse> handleResourceAlreadyExist(ResourceAlreadyExistException ex) {
+        recordError(InternalCode.CASAVA_LIB_008);
         ErrorResponse errorResponse = new ErrorResponse(false, InternalCode.CASAVA_LIB_008, ERROR_MESSAGE + ex.getMessage(), null);
         return ResponseEntity.status(HttpStatus.ALREADY_REPORTED).body(errorResponse);
     }
 
+    @ExceptionHandler(ResourceConflictException.class)
+    public ResponseEntity<ErrorResponse> handleResourceConflict(ResourceConflictException ex) {
+        recordError(InternalCode.CASAVA_LIB_009);
+        ErrorResponse errorResponse = new ErrorResponse(false, InternalCode.CASAVA_LIB_009, ERROR_MESSAGE + ex.getMessage(), null);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    // A stale If-Match: the edit was made against a version that is no longer current (RFC 9110, section 13.1.1).
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailed(PreconditionFailedException ex) {
+        recordError(InternalCode.CASAVA_LIB_011);
+        ErrorResponse errorResponse = new ErrorResponse(false, InternalCode.CASAVA_LIB_011, ERROR_MESSAGE + ex.getMessage(), null);
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(errorResponse);
+    }
+
+    // Reached once the service-level retries have given up on a row that keeps changing underneath.
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        recordError(InternalCode.CASAVA_LIB_009);
+        ErrorResponse errorResponse = new ErrorResponse(false, InternalCode.CASAVA_LIB_009, ERROR_MESSAGE + CONCURRENT_UPDATE_MESSAGE, null);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
+        recordError(InternalCode.CASAVA_LIB_004);
         ErrorResponse errorResponse = new ErrorResponse(false, InternalCode.CASAVA_LIB_004, ERROR_MESSAGE + ex.getMessage(), null);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex) {
-        Map<String, String> errors = new HashMap<>();
-        ex.getBindingResult().getAllErrors().forEach((error) -> {
-            String fieldName = ((FieldError) error).getField();
-            String errorMessage = error.getDefaultMessage();
-            errors.put(fieldName, errorMessage);
-        });
-        return new ResponseEntity<>(new ErrorResponse(false, InternalCode.CASAVA_LIB_004, "Please review your input and try again. Some fields require correction.", errors), HttpStatus.BAD_REQUEST);
+        return invalidFields(ex.getBindingResult());
+    }
+
+    // The WebFlux counterpart of MethodArgumentNotValidException, raised under the reactive profile.
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleWebExchangeBindException(WebExchangeBindException ex) {
+        return invalidFields(ex.getBindingResult());
     }
 
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ErrorResponse> handleConstraintViolation(ConstraintViolationException ex) {
+        recordError(InternalCode.CASAVA_LIB_004);
         Map<String, String> errors = new HashMap<>();
         ex.getConstraintViolations().forEach(violation -> {
             String fieldName = violation.getPropertyPath().toString();
@@ -57,8 +95,24 @@ public class GlobalExceptionAdvice {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGenericException(Exception ex) {
+        recordError(InternalCode.CASAVA_LIB_002);
         Map<String, String> error = new HashMap<>();
         error.put("message", "An unexpected error occurred");
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    private ResponseEntity<ErrorResponse> invalidFields(BindingResult bindingResult) {
+        recordError(InternalCode.CASAVA_LIB_004);
+        Map<String, String> errors = new HashMap<>();
+        bindingResult.getAllErrors().forEach((error) -> {
+            String fieldName = ((FieldError) error).getField();
+            String errorMessage = error.getDefaultMessage();
+            errors.put(fieldName, errorMessage);
+        });
+        return new ResponseEntity<>(new ErrorResponse(false, InternalCode.CASAVA_LIB_004, "Please review your input and try again. Some fields require correction.", errors), HttpStatus.BAD_REQUEST);
+    }
+
+    private void recordError(InternalCode internalCode) {
+        meterRegistry.counter(ERRORS_METRIC, "code", internalCode.name()).increment();
+    }
 }
\ No newline at end of file
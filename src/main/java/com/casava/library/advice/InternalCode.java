@@ -15,7 +15,10 @@ public enum InternalCode {
     CASAVA_LIB_005(5, "Unauthorized, requires user authentication", UNAUTHORIZED),
     CASAVA_LIB_006(6, "Forbidden, implies that the request is understood by the server, but still refuses to fulfill it", FORBIDDEN),
     CASAVA_LIB_007(7, "Resource not implemented.", NOT_IMPLEMENTED),
-    CASAVA_LIB_008(8, "Resource already exists.", CONFLICT);
+    CASAVA_LIB_008(8, "Resource already exists.", CONFLICT),
+    CASAVA_LIB_009(9, "Resource is in a state that conflicts with the request.", CONFLICT),
+    CASAVA_LIB_010(10, "Too many requests, retry later.", TOO_MANY_REQUESTS),
+    CASAVA_LIB_011(11, "Precondition failed, the resource has changed since it was read.", PRECONDITION_FAILED);
 
     private final String codeDescription;
     private final String codeNumber;
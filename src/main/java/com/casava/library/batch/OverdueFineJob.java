@@ -0,0 +1,233 @@
+package com.casava.library.batch;
+
+import com.casava.library.entity.FineRunPartition;
+import com.casava.library.repository.FineRunPartitionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static com.casava.library.constant.Constants.*;
+import static com.casava.library.util.Pagination.FIRST_ID;
+import static com.casava.library.util.Pagination.LAST_ID;
+
+// Nightly fine assessment. Overdue loans are split into key ranges holding equal numbers of loans and each range
+// is worked on a virtual thread in chunks. A chunk commits its fine updates together with the range's checkpoint,
+// so a run that dies part-way resumes from the last committed chunk instead of starting over. Runs and resumes take
+// a PostgreSQL advisory lock first, so with several instances only one of them assesses fines at a time.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OverdueFineJob {
+    private static final String SELECT_OVERDUE_LOANS = "select id, loan_date, fine from loans " +
+            "where return_date is null and id > ? and id <= ? and loan_date < ? order by id limit ?";
+    // Ids are time-ordered, so equal slices of the UUID space would leave nearly all loans in one range.
+    // PostgreSQL has no max(uuid), so each tile's last id is picked with distinct on.
+    private static final String PARTITION_UPPER_BOUNDS = "select distinct on (tile) id as upper_bound from " +
+            "(select id, ntile(?) over (order by id) as tile from loans " +
+            "where return_date is null and loan_date < ?) tiles order by tile, id desc";
+    private static final String UPDATE_FINE = "update loans set fine = ?, version = version + 1 where id = ?";
+    private static final String TRY_LOCK = "select pg_try_advisory_lock(?)";
+    private static final String UNLOCK = "select pg_advisory_unlock(?)";
+
+    private final FineRunPartitionRepository partitionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private volatile double lastThroughput;
+
+    public record FineRunSummary(LocalDate runDate, int partitions, long loansProcessed, long finesUpdated,
+                                 Duration duration) {
+    }
+
+    private record OverdueLoan(UUID id, LocalDate loanDate, BigDecimal fine) {
+    }
+
+    private record Chunk(int loansProcessed, int finesUpdated, UUID lastLoanId) {
+    }
+
+    @PostConstruct
+    void registerThroughputGauge() {
+        Gauge.builder(FINE_THROUGHPUT_METRIC, this, job -> job.lastThroughput)
+                .description("Loans assessed per second during the last fine run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${library.fines.cron:0 0 2 * * *}")
+    public void runNightly() {
+        run(LocalDate.now());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        Thread.ofVirtual().name("fine-run-resume").start(this::resume);
+    }
+
+    // Finishes the latest run left with unfinished partitions, whatever day it was started on. The check is made
+    // under the lock, so a run another instance completed in the meantime is not assessed again.
+    Optional<FineRunSummary> resume() {
+        return exclusively(() -> partitionRepository.findFirstByCompletedFalseOrderByRunDateDesc().map(partition -> {
+            log.info("Resuming interrupted fine run for {}", partition.getRunDate());
+            return assess(partition.getRunDate());
+        }));
+    }
+
+    // Empty when another run holds the lock, on this instance or another one.
+    public Optional<FineRunSummary> run(LocalDate runDate) {
+        return exclusively(() -> Optional.of(assess(runDate)));
+    }
+
+    // The lock is held on a connection of its own for the whole run and is released by the database if the
+    // instance dies with it.
+    private Optional<FineRunSummary> exclusively(Supplier<Optional<FineRunSummary>> work) {
+        return jdbcTemplate.execute((ConnectionCallback<Optional<FineRunSummary>>) connection -> {
+            if (!advisoryLock(connection, TRY_LOCK)) {
+                log.info("Fine run skipped: another run holds the lock");
+                return Optional.empty();
+            }
+            try {
+                return work.get();
+            } finally {
+                advisoryLock(connection, UNLOCK);
+            }
+        });
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, FINE_RUN_LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private FineRunSummary assess(LocalDate runDate) {
+        long started = System.nanoTime();
+        List<FineRunPartition> pending = preparePartitions(runDate);
+        long loans = 0;
+        long fines = 0;
+        try (ExecutorService workers = Executors.newFixedThreadPool(FINE_JOB_PARALLELISM,
+                Thread.ofVirtual().name("fine-run-", 0).factory())) {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (FineRunPartition partition : pending) {
+                results.add(workers.submit(() -> processPartition(partition, runDate)));
+            }
+            for (Future<long[]> result : results) {
+                long[] counts = result.get();
+                loans += counts[0];
+                fines += counts[1];
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Fine run interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Fine run failed; the next run resumes from its checkpoints", ex.getCause());
+        }
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - started);
+        meterRegistry.timer(FINE_RUN_METRIC).record(duration);
+        lastThroughput = loans / Math.max(duration.toNanos() / 1e9, 1e-3);
+        FineRunSummary summary = new FineRunSummary(runDate, pending.size(), loans, fines, duration);
+        log.info("Fine run finished: {}", summary);
+        return summary;
+    }
+
+    // Picks up today's checkpoints when they exist, otherwise splits the overdue loans into ranges of equal size.
+    // The last range is open-ended, so loans made while the run is in progress are still covered.
+    private List<FineRunPartition> preparePartitions(LocalDate runDate) {
+        return transactionTemplate.execute(status -> {
+            partitionRepository.deleteRunsBefore(runDate);
+            List<FineRunPartition> partitions = partitionRepository.findByRunDateOrderByPartitionIndex(runDate);
+            if (partitions.isEmpty()) {
+                List<UUID> upperBounds = jdbcTemplate.queryForList(PARTITION_UPPER_BOUNDS, UUID.class,
+                        FINE_JOB_PARTITIONS, runDate.minusDays(LOAN_PERIOD_DAYS));
+                int count = Math.max(upperBounds.size(), 1);
+                UUID lowerBound = FIRST_ID;
+                for (int index = 0; index < count; index++) {
+                    UUID upperBound = index == count - 1 ? LAST_ID : upperBounds.get(index);
+                    FineRunPartition partition = new FineRunPartition();
+                    partition.setRunDate(runDate);
+                    partition.setPartitionIndex(index);
+                    partition.setLowerBound(lowerBound);
+                    partition.setUpperBound(upperBound);
+                    partition.setLastLoanId(lowerBound);
+                    partitions.add(partition);
+                    lowerBound = upperBound;
+                }
+                partitions = partitionRepository.saveAll(partitions);
+            }
+            return partitions.stream().filter(partition -> !partition.isCompleted()).toList();
+        });
+    }
+
+    private long[] processPartition(FineRunPartition partition, LocalDate runDate) {
+        long[] counts = new long[2];
+        UUID lastLoanId = partition.getLastLoanId();
+        Chunk chunk;
+        do {
+            UUID after = lastLoanId;
+            chunk = transactionTemplate.execute(status -> processChunk(partition, after, runDate));
+            meterRegistry.counter(FINE_LOANS_METRIC).increment(chunk.loansProcessed());
+            meterRegistry.counter(FINE_UPDATES_METRIC).increment(chunk.finesUpdated());
+            counts[0] += chunk.loansProcessed();
+            counts[1] += chunk.finesUpdated();
+            lastLoanId = chunk.lastLoanId();
+        } while (chunk.loansProcessed() == FINE_JOB_CHUNK_SIZE);
+        return counts;
+    }
+
+    private Chunk processChunk(FineRunPartition partition, UUID after, LocalDate runDate) {
+        List<OverdueLoan> loans = jdbcTemplate.query(SELECT_OVERDUE_LOANS,
+                (resultSet, row) -> new OverdueLoan(resultSet.getObject("id", UUID.class),
+                        resultSet.getObject("loan_date", LocalDate.class), resultSet.getBigDecimal("fine")),
+                after, partition.getUpperBound(), runDate.minusDays(LOAN_PERIOD_DAYS), FINE_JOB_CHUNK_SIZE);
+
+        List<Object[]> updates = new ArrayList<>();
+        for (OverdueLoan loan : loans) {
+            BigDecimal fine = fineFor(loan.loanDate(), runDate);
+            if (loan.fine() == null || loan.fine().compareTo(fine) != 0) {
+                updates.add(new Object[]{fine, loan.id()});
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_FINE, updates);
+        }
+
+        UUID lastLoanId = loans.isEmpty() ? after : loans.get(loans.size() - 1).id();
+        partitionRepository.checkpoint(partition.getId(), lastLoanId, loans.size(), updates.size(),
+                loans.size() < FINE_JOB_CHUNK_SIZE);
+        return new Chunk(loans.size(), updates.size(), lastLoanId);
+    }
+
+    static BigDecimal fineFor(LocalDate loanDate, LocalDate runDate) {
+        long daysOverdue = ChronoUnit.DAYS.between(loanDate.plusDays(LOAN_PERIOD_DAYS), runDate);
+        return FINE_PER_DAY.multiply(BigDecimal.valueOf(Math.max(daysOverdue, 0))).min(MAX_FINE);
+    }
+}
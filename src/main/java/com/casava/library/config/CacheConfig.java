@@ -0,0 +1,30 @@
+package com.casava.library.config;
+
+import com.casava.library.util.EncodedPage;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+import static com.casava.library.constant.Constants.BOOK_PAGE_JSON_CACHE;
+import static com.casava.library.constant.Constants.BOOK_PAGE_JSON_CACHE_BYTES;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Encoded pages vary a lot in size, so this cache is bounded by bytes rather than by entry count.
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> bookPageJsonCacheCustomizer() {
+        return cacheManager -> cacheManager.registerCustomCache(BOOK_PAGE_JSON_CACHE, Caffeine.newBuilder()
+                .maximumWeight(BOOK_PAGE_JSON_CACHE_BYTES)
+                .weigher((Object key, Object value) -> ((EncodedPage) value).json().length)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .recordStats()
+                .build());
+    }
+}
@@ -0,0 +1,22 @@
+package com.casava.library.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+// The CDS training run of the fast-startup image refreshes the context and exits, without a database to talk to.
+// With AOT the Flyway beans are fixed at build time and spring.flyway.enabled no longer removes them, so migrations
+// are skipped here instead; they run on the next real start.
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        return flyway -> {
+            if (!"onRefresh".equals(environment.getProperty("spring.context.exit"))) {
+                flyway.migrate();
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.casava.library.config;
+
+import com.casava.library.advice.ErrorResponse;
+import com.casava.library.metrics.StatementCounter;
+import com.casava.library.repository.projection.LoanedBook;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.util.ClassUtils;
+
+import java.sql.Connection;
+
+// Reflection the native image cannot discover from the AOT-processed context. Spring already covers the entities,
+// their id generator, the Spring Data projections and the DTOs in controller signatures; DTOs are also written
+// through NDJSON exports and pre-encoded JSON, so all of them are registered for Jackson binding. Hibernate creates
+// the statement inspector from its class name and LoanedBook from a JPQL constructor expression. The connections
+// handed out under admission control are JDK proxies, which a native image has to generate at build time.
+public class LibraryRuntimeHints implements RuntimeHintsRegistrar {
+    private static final String[] DTO_PACKAGES = {"com.casava.library.dto.request", "com.casava.library.dto.response"};
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return true;
+            }
+        };
+        scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> true);
+        for (String dtoPackage : DTO_PACKAGES) {
+            scanner.findCandidateComponents(dtoPackage).forEach(dto -> bindingHints.registerReflectionHints(
+                    hints.reflection(), ClassUtils.resolveClassName(dto.getBeanClassName(), classLoader)));
+        }
+        bindingHints.registerReflectionHints(hints.reflection(), ErrorResponse.class);
+        hints.reflection().registerType(StatementCounter.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(LoanedBook.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.proxies().registerJdkProxy(Connection.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.casava.library.config;
+
+import com.casava.library.ratelimit.AdaptiveConcurrencyLimit;
+import com.casava.library.ratelimit.ClientRateLimiter;
+import com.casava.library.ratelimit.RateLimitFilter;
+import com.casava.library.ratelimit.RateLimitWebFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+import static com.casava.library.constant.Constants.*;
+
+@Configuration
+public class RateLimitConfig {
+    // Right after the servlet observation filter, so rejected requests still show up in http.server.requests.
+    private static final int FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 2;
+
+    @Bean
+    public ClientRateLimiter clientRateLimiter(@Value("${library.rate-limit.requests-per-second:50}") double permitsPerSecond,
+                                               @Value("${library.rate-limit.burst:100}") int burst) {
+        return new ClientRateLimiter(RATE_LIMIT_STRIPES, permitsPerSecond, burst, System::nanoTime);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimit adaptiveConcurrencyLimit(@Value("${library.load-shedding.initial-limit:200}") int initialLimit,
+                                                             @Value("${library.load-shedding.min-limit:20}") int minLimit,
+                                                             @Value("${library.load-shedding.max-limit:2000}") int maxLimit,
+                                                             @Value("${library.load-shedding.latency-threshold:PT1S}") Duration latencyThreshold,
+                                                             @Value("${library.load-shedding.queue-threshold:10}") int queueThreshold,
+                                                             MeterRegistry meterRegistry) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                latencyThreshold.toNanos(), queueThreshold, databaseWaiters(meterRegistry), System::nanoTime);
+        Gauge.builder(CONCURRENCY_LIMIT_METRIC, limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Requests admitted at once before load is shed")
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_METRIC, limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Requests currently admitted")
+                .register(meterRegistry);
+        return limit;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(ClientRateLimiter rateLimiter,
+                                                                   @Value("${library.rate-limit.api-keys:}") Set<String> apiKeys,
+                                                                   AdaptiveConcurrencyLimit concurrencyLimit,
+                                                                   ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+                new RateLimitFilter(rateLimiter, apiKeys, concurrencyLimit, objectMapper, meterRegistry));
+        registration.setOrder(FILTER_ORDER);
+        return registration;
+    }
+
+    @Bean
+    @Order(FILTER_ORDER)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public RateLimitWebFilter rateLimitWebFilter(ClientRateLimiter rateLimiter,
+                                                 @Value("${library.rate-limit.api-keys:}") Set<String> apiKeys,
+                                                 AdaptiveConcurrencyLimit concurrencyLimit,
+                                                 ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new RateLimitWebFilter(rateLimiter, apiKeys, concurrencyLimit, objectMapper, meterRegistry);
+    }
+
+    // Requests waiting on any connection pool, JDBC or R2DBC, or on the admission queue in front of it with virtual
+    // threads. Read from the pool gauges, which are there whichever way the data sources are wrapped or routed.
+    static IntSupplier databaseWaiters(MeterRegistry meterRegistry) {
+        return () -> (int) Stream.of("hikaricp.connections.pending", "r2dbc.pool.pending", DB_ADMISSION_QUEUED_METRIC)
+                .flatMap(name -> meterRegistry.find(name).gauges().stream())
+                .mapToDouble(Gauge::value)
+                .sum();
+    }
+}
@@ -0,0 +1,127 @@
+package com.casava.library.config;
+
+import com.casava.library.ratelimit.TrustedProxyForwardedHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
+import io.r2dbc.spi.ConnectionFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.r2dbc.ConnectionFactoryOptionsBuilderCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.MimeType;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.LoopResources;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Enabled by the reactive profile, which serves the loan API on WebFlux and R2DBC. The pooled R2DBC connections all
+// run on a small event loop of their own, so a handful of threads carries every database round trip.
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveConfig {
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    // Boot drops the JDBC pool once an R2DBC ConnectionFactory exists; JPA, Flyway and the scheduled jobs still need it.
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public LoopResources databaseLoopResources(@Value("${library.reactive.db-event-loop-threads:2}") int threads) {
+        return LoopResources.create("r2dbc-postgres", threads, true);
+    }
+
+    @Bean
+    public ConnectionFactoryOptionsBuilderCustomizer databaseLoopCustomizer(LoopResources databaseLoopResources) {
+        return builder -> builder.option(PostgresqlConnectionFactoryProvider.LOOP_RESOURCES, databaseLoopResources);
+    }
+
+    // The R2DBC transaction manager is kept out of the context: next to the JPA one, @Transactional could not pick.
+    @Bean
+    public TransactionalOperator transactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    // Tomcat stays on the classpath for the servlet stack, and Boot would otherwise run WebFlux on it as well. Server
+    // customizers run after the forward-headers strategy is applied, so forwarded addresses are only taken from the
+    // trusted proxies, as Tomcat does.
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(
+            @Value("${library.trusted-proxies}") String trustedProxies) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.addServerCustomizers(server ->
+                server.forwarded(new TrustedProxyForwardedHandler(Pattern.compile(trustedProxies))));
+        return factory;
+    }
+
+    // The same Smile and CBOR encodings as MessageConverterConfig gives the servlet stack. The mime types are spelled
+    // out, since codecs built from a bare mapper claim application/json. Custom codecs are consulted before the
+    // defaults, so JSON is registered again ahead of CBOR to stay the answer to Accept: */*.
+    @Bean
+    public CodecCustomizer binaryCodecCustomizer(Jackson2ObjectMapperBuilder builder, ObjectMapper objectMapper) {
+        ObjectMapper smileMapper = builder.factory(new SmileFactory()).build();
+        ObjectMapper cborMapper = builder.factory(new CBORFactory()).build();
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, SMILE));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE));
+            configurer.customCodecs().register(new Jackson2JsonEncoder(objectMapper));
+            configurer.customCodecs().register(new CborValueEncoder(cborMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+        };
+    }
+
+    // As on the servlet stack (MessageConverterConfig), every response is chosen by Accept.
+    @Bean
+    public WebFilter varyByAcceptFilter() {
+        return (exchange, chain) -> {
+            exchange.getResponse().getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            return chain.filter(exchange);
+        };
+    }
+
+    // Spring's CBOR encoder refuses the publisher that response writers hand every encoder, even though it can encode
+    // a single value, and every body that reaches it here is a single value.
+    private static final class CborValueEncoder extends Jackson2CborEncoder {
+        private CborValueEncoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono<?> mono) {
+                return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+            }
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.casava.library.config;
+
+import com.casava.library.datasource.ReadFromReplicaAspect;
+import com.casava.library.datasource.ReadWriteRoutingDataSource;
+import com.casava.library.datasource.ReadYourWritesFilter;
+import com.casava.library.datasource.ReplicaAwareCacheManager;
+import com.casava.library.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizers;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static com.casava.library.constant.Constants.REPLICA_LAG_METRIC;
+
+// Enabled by the replica profile. The primary pool keeps the spring.datasource settings, the replica pool is bound
+// from library.replica.datasource, and the DataSource everything else sees routes between them per transaction.
+@Configuration
+@ConditionalOnProperty("library.replica.datasource.jdbc-url")
+@EnableConfigurationProperties(CacheProperties.class)
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("library.replica.datasource")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                               @Qualifier("replicaDataSource") DataSource replica,
+                                               @Value("${library.replica.max-lag:PT5S}") Duration maxLag,
+                                               MeterRegistry meterRegistry) {
+        ReplicaLagMonitor lagMonitor = new ReplicaLagMonitor(new JdbcTemplate(primary), new JdbcTemplate(replica), maxLag);
+        Gauge.builder(REPLICA_LAG_METRIC, lagMonitor, ReplicaLagMonitor::getLagSeconds)
+                .description("Seconds the replica trails the primary; NaN while it is unreachable")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        return lagMonitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, lagMonitor, meterRegistry));
+    }
+
+    @Bean
+    public ReadFromReplicaAspect readFromReplicaAspect() {
+        return new ReadFromReplicaAspect();
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${library.replica.max-lag:PT5S}") Duration maxLag,
+                                                     @Value("${library.replica.lag-check-interval:PT1S}") Duration checkInterval) {
+        return new ReadYourWritesFilter(replicationWindow(maxLag, checkInterval));
+    }
+
+    // Replaces the auto-configured cache manager, so the spring.cache settings and customizers are applied here.
+    @Bean
+    public CaffeineCacheManager cacheManager(CacheProperties cacheProperties,
+                                             ObjectProvider<CacheManagerCustomizer<?>> customizers,
+                                             TaskScheduler taskScheduler,
+                                             @Value("${library.replica.max-lag:PT5S}") Duration maxLag,
+                                             @Value("${library.replica.lag-check-interval:PT1S}") Duration checkInterval) {
+        CaffeineCacheManager cacheManager = new ReplicaAwareCacheManager(taskScheduler,
+                replicationWindow(maxLag, checkInterval));
+        String specification = cacheProperties.getCaffeine().getSpec();
+        if (StringUtils.hasText(specification)) {
+            cacheManager.setCacheSpecification(specification);
+        }
+        if (!cacheProperties.getCacheNames().isEmpty()) {
+            cacheManager.setCacheNames(cacheProperties.getCacheNames());
+        }
+        new CacheManagerCustomizers(customizers.orderedStream().toList()).customize(cacheManager);
+        return cacheManager;
+    }
+
+    // A replica is only read while it trails by at most max-lag, measured once per check interval, so a write is
+    // visible on it no later than this after commit.
+    private static Duration replicationWindow(Duration maxLag, Duration checkInterval) {
+        return maxLag.plus(checkInterval);
+    }
+}
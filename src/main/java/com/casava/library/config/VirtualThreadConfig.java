@@ -0,0 +1,39 @@
+package com.casava.library.config;
+
+import com.casava.library.datasource.AdmissionControlledDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static com.casava.library.constant.Constants.DB_ADMISSION_QUEUED_METRIC;
+
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionAdmissionControl(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                AdmissionControlledDataSource dataSource = new AdmissionControlledDataSource(hikari,
+                        hikari.getMaximumPoolSize(), hikari.getConnectionTimeout());
+                meterRegistry.ifAvailable(registry -> Gauge.builder(DB_ADMISSION_QUEUED_METRIC,
+                                dataSource, AdmissionControlledDataSource::getQueueLength)
+                        .description("Threads waiting for a database connection permit")
+                        .tag("pool", beanName)
+                        .register(registry));
+                return dataSource;
+            }
+        };
+    }
+}
@@ -1,9 +1,68 @@
 package com.casava.library.constant;
 
+import java.math.BigDecimal;
+
 public class Constants {
     public static final String ERROR_MESSAGE = "Unable to process request: ";
     public static final String SUCCESS_MESSAGE = "Request processed successfully";
     public static final String BOOK_NOT_FOUND_MESSAGE = "Book not found";
     public static final String USER_NOT_FOUND_MESSAGE = "User not found";
     public static final String LOAN_NOT_FOUND_MESSAGE = "Loan not found";
+    public static final String NO_COPIES_AVAILABLE_MESSAGE = "No copies of this book are available";
+    public static final String LOAN_ALREADY_RETURNED_MESSAGE = "Loan has already been returned";
+    public static final String STALE_VERSION_MESSAGE = "The resource has changed since it was read; fetch it again and retry";
+    public static final String CONCURRENT_UPDATE_MESSAGE = "The resource is being updated concurrently; please retry";
+    public static final int OPTIMISTIC_RETRY_ATTEMPTS = 4;
+    public static final long OPTIMISTIC_RETRY_BASE_DELAY_MS = 5;
+    public static final String OPEN_LOAN_FILTER_MESSAGE = "Filter open loans by userId or by bookId, not both";
+    public static final int LOAN_PERIOD_DAYS = 14;
+    public static final BigDecimal FINE_PER_DAY = new BigDecimal("0.25");
+    public static final BigDecimal MAX_FINE = new BigDecimal("20.00");
+    public static final long FINE_RUN_LOCK_KEY = 0x6c69625f66696e65L;
+    public static final int FINE_JOB_PARTITIONS = 16;
+    public static final int FINE_JOB_PARALLELISM = 4;
+    public static final int FINE_JOB_CHUNK_SIZE = 1000;
+    public static final String INVALID_CURSOR_MESSAGE = "Invalid page cursor";
+    public static final String SEARCH_QUERY_REQUIRED_MESSAGE = "Search query is required";
+    public static final int MAX_SEARCH_QUERY_LENGTH = 200;
+    public static final int MAX_SEARCH_RESULTS = 1000;
+    public static final String AUTOCOMPLETE_PREFIX_REQUIRED_MESSAGE = "Autocomplete prefix is required";
+    public static final String DEFAULT_SUGGESTIONS = "10";
+    public static final int MAX_SUGGESTIONS = 25;
+    public static final String DEFAULT_PAGE_SIZE = "20";
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final String EXPORT_FETCH_SIZE = "500";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String SMILE_ENCODING = "smile";
+    public static final String CBOR_ENCODING = "cbor";
+    public static final int IMPORT_CHUNK_SIZE = 500;
+    public static final int MAX_IMPORT_ERRORS = 1000;
+    public static final int AUTOCOMPLETE_OVERLAY_IMPORT_LIMIT = 1000;
+    public static final int MAX_BATCH_SIZE = 100;
+    public static final String SERVICE_TIMER = "library.service";
+    public static final String DB_STATEMENTS_METRIC = "library.db.statements";
+    public static final String DB_ROUTING_METRIC = "library.db.routing";
+    public static final String REPLICA_LAG_METRIC = "library.db.replica.lag";
+    public static final String PRIMARY_PIN_COOKIE = "library-primary-until";
+    public static final String DB_ADMISSION_QUEUED_METRIC = "library.db.admission.queued";
+    public static final String API_KEY_HEADER = "X-API-Key";
+    public static final int RATE_LIMIT_STRIPES = 1 << 16;
+    public static final String RATE_LIMITED_MESSAGE = "Too many requests from this client; retry after the time in Retry-After";
+    public static final String OVERLOADED_MESSAGE = "The service is overloaded; please retry shortly";
+    public static final String REQUESTS_REJECTED_METRIC = "library.requests.rejected";
+    public static final String CONCURRENCY_LIMIT_METRIC = "library.requests.concurrency.limit";
+    public static final String IN_FLIGHT_METRIC = "library.requests.in.flight";
+    public static final String ERRORS_METRIC = "library.errors";
+    public static final String FINE_RUN_METRIC = "library.fines.run";
+    public static final String FINE_LOANS_METRIC = "library.fines.loans";
+    public static final String FINE_UPDATES_METRIC = "library.fines.updated";
+    public static final String FINE_THROUGHPUT_METRIC = "library.fines.throughput";
+    public static final String BOOK_ISBN_CONSTRAINT = "books_isbn_key";
+    public static final String USER_EMAIL_CONSTRAINT = "users_email_key";
+    public static final String BOOK_CACHE = "books";
+    public static final String USER_CACHE = "users";
+    public static final String BOOK_JSON_CACHE = "book-json";
+    public static final String BOOK_PAGE_JSON_CACHE = "book-page-json";
+    public static final long BOOK_PAGE_JSON_CACHE_BYTES = 32L * 1024 * 1024;
 }
@@ -3,9 +3,19 @@ package com.casava.library.controller;
 import com.casava.library.advice.InternalCode;
 import com.casava.library.dto.request.BookRequestDTO;
 import com.casava.library.dto.response.ApiResponseDTO;
+import com.casava.library.dto.response.AutocompleteResponseDTO;
+import com.casava.library.dto.response.BookImportResponseDTO;
 import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
 import com.casava.library.dto.response.UserResponseDTO;
+import com.casava.library.service.BookImportService;
+import com.casava.library.service.BookJsonService;
 import com.casava.library.service.BookService;
+import com.casava.library.util.EntityTag;
+import com.casava.library.util.JsonEnvelope;
+import com.casava.library.util.NdjsonWriter;
+import com.casava.library.util.VersionedJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,44 +24,144 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.InputStream;
 import java.util.UUID;
 
+import static com.casava.library.constant.Constants.APPLICATION_SMILE_VALUE;
+import static com.casava.library.constant.Constants.CBOR_ENCODING;
+import static com.casava.library.constant.Constants.DEFAULT_PAGE_SIZE;
+import static com.casava.library.constant.Constants.DEFAULT_SUGGESTIONS;
+import static com.casava.library.constant.Constants.SMILE_ENCODING;
 import static com.casava.library.constant.Constants.SUCCESS_MESSAGE;
+import static com.casava.library.constant.Constants.TEXT_CSV_VALUE;
 
 @RestController
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/books")
 @Tag(name = "Book", description = "Book management APIs")
 public class BookController {
     private final BookService bookService;
+    private final BookJsonService bookJsonService;
+    private final BookImportService bookImportService;
+    private final ObjectMapper objectMapper;
 
+    // Declares no media type so that it stays the answer to Accept: */* or no Accept; the binary encodings have their
+    // own handlers.
     @GetMapping
-    @Operation(summary = "Get all books", description = "Retrieves a list of all books")
+    @Operation(summary = "Get all books", description = "Retrieves a page of books ordered by ID, optionally filtered")
     @ApiResponse(responseCode = "200", description = "Successful operation",
             content = @Content(schema = @Schema(implementation = BookResponseDTO.class)))
-    public ResponseEntity<ApiResponseDTO<List<BookResponseDTO>>> getAllBooks() {
-        List<BookResponseDTO> books = bookService.getAllBooks();
-        ApiResponseDTO<List<BookResponseDTO>> response = new ApiResponseDTO<>(true,
+    public ResponseEntity<byte[]> getAllBooks(
+            @Parameter(description = "Filter by author") @RequestParam(required = false) String author,
+            @Parameter(description = "Filter by published year") @RequestParam(required = false) Integer publishedYear,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of books per page") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        byte[] books = bookJsonService.getAllBooks(author, publishedYear, cursor, size).json();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(JsonEnvelope.success(books));
+    }
+
+    @GetMapping(produces = {APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @Operation(summary = "Get all books as Smile or CBOR", description = "The page GET /books returns, in a binary encoding")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = BookResponseDTO.class)))
+    public ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<BookResponseDTO>>> getAllBooksBinary(
+            @Parameter(description = "Filter by author") @RequestParam(required = false) String author,
+            @Parameter(description = "Filter by published year") @RequestParam(required = false) Integer publishedYear,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of books per page") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPageResponseDTO<BookResponseDTO> books = bookService.getAllBooks(author, publishedYear, cursor, size);
+        ApiResponseDTO<CursorPageResponseDTO<BookResponseDTO>> response = new ApiResponseDTO<>(true,
                 SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, books);
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Search books", description = "Ranked full-text search over title and author that tolerates typos")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = BookResponseDTO.class)))
+    public ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<BookResponseDTO>>> searchBooks(
+            @Parameter(description = "Words to look for in the title or author") @RequestParam String q,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of books per page") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPageResponseDTO<BookResponseDTO> books = bookService.searchBooks(q, cursor, size);
+        ApiResponseDTO<CursorPageResponseDTO<BookResponseDTO>> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, books);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/autocomplete")
+    @Operation(summary = "Autocomplete titles and authors", description = "Most borrowed titles and authors starting with the prefix")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = AutocompleteResponseDTO.class)))
+    public ResponseEntity<ApiResponseDTO<AutocompleteResponseDTO>> autocomplete(
+            @Parameter(description = "Beginning of a title or author name") @RequestParam String prefix,
+            @Parameter(description = "Maximum number of titles and of authors") @RequestParam(defaultValue = DEFAULT_SUGGESTIONS) int limit) {
+        AutocompleteResponseDTO suggestions = bookService.autocomplete(prefix, limit);
+        ApiResponseDTO<AutocompleteResponseDTO> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, suggestions);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all books", description = "Streams every book as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = BookResponseDTO.class)))
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        StreamingResponseBody body = outputStream -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream)) {
+                bookService.exportBooks(writer::write);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get a book by ID", description = "Retrieves a book by its ID")
     @ApiResponse(responseCode = "200", description = "Successful operation",
             content = @Content(schema = @Schema(implementation = BookResponseDTO.class)))
+    @ApiResponse(responseCode = "304", description = "Book unchanged since the ETag in If-None-Match")
     @ApiResponse(responseCode = "404", description = "Book not found")
-    public ResponseEntity<ApiResponseDTO<BookResponseDTO>> getBookById(
-            @Parameter(description = "ID of the book to retrieve") @PathVariable UUID id) {
-        BookResponseDTO book = bookService.getBookById(id);
-        ApiResponseDTO<BookResponseDTO> response = new ApiResponseDTO<>(true,
-                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, book);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<byte[]> getBookById(
+            @Parameter(description = "ID of the book to retrieve") @PathVariable UUID id, WebRequest request) {
+        VersionedJson book = bookJsonService.getBookById(id);
+        String eTag = EntityTag.of(book.version());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON)
+                .body(JsonEnvelope.success(book.json()));
+    }
+
+    @GetMapping(value = "/{id}", produces = APPLICATION_SMILE_VALUE)
+    @Operation(summary = "Get a book by ID as Smile", description = "The book GET /books/{id} returns, encoded as Smile")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = BookResponseDTO.class)))
+    @ApiResponse(responseCode = "304", description = "Book unchanged since the ETag in If-None-Match")
+    @ApiResponse(responseCode = "404", description = "Book not found")
+    public ResponseEntity<ApiResponseDTO<BookResponseDTO>> getBookByIdSmile(
+            @Parameter(description = "ID of the book to retrieve") @PathVariable UUID id, WebRequest request) {
+        return getBookByIdBinary(id, SMILE_ENCODING, request);
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_CBOR_VALUE)
+    @Operation(summary = "Get a book by ID as CBOR", description = "The book GET /books/{id} returns, encoded as CBOR")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = BookResponseDTO.class)))
+    @ApiResponse(responseCode = "304", description = "Book unchanged since the ETag in If-None-Match")
+    @ApiResponse(responseCode = "404", description = "Book not found")
+    public ResponseEntity<ApiResponseDTO<BookResponseDTO>> getBookByIdCbor(
+            @Parameter(description = "ID of the book to retrieve") @PathVariable UUID id, WebRequest request) {
+        return getBookByIdBinary(id, CBOR_ENCODING, request);
     }
 
     @PostMapping
@@ -66,15 +176,42 @@ public class BookController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Import books from JSON", description = "Bulk inserts a JSON array of books and reports rejected rows")
+    @ApiResponse(responseCode = "200", description = "Import finished",
+            content = @Content(schema = @Schema(implementation = BookImportResponseDTO.class)))
+    public ResponseEntity<ApiResponseDTO<BookImportResponseDTO>> importBooksJson(
+            @Parameter(description = "JSON array of books") InputStream body) {
+        BookImportResponseDTO report = bookImportService.importJson(body);
+        ApiResponseDTO<BookImportResponseDTO> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, report);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    @Operation(summary = "Import books from CSV", description = "Bulk inserts books from a CSV file with a header row and reports rejected rows")
+    @ApiResponse(responseCode = "200", description = "Import finished",
+            content = @Content(schema = @Schema(implementation = BookImportResponseDTO.class)))
+    public ResponseEntity<ApiResponseDTO<BookImportResponseDTO>> importBooksCsv(
+            @Parameter(description = "CSV with columns title,author,publishedYear,isbn,copiesAvailable") InputStream body) {
+        BookImportResponseDTO report = bookImportService.importCsv(body);
+        ApiResponseDTO<BookImportResponseDTO> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, report);
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update a book", description = "Updates an existing book")
     @ApiResponse(responseCode = "200", description = "Book updated successfully",
             content = @Content(schema = @Schema(implementation = BookResponseDTO.class)))
     @ApiResponse(responseCode = "404", description = "Book not found")
+    @ApiResponse(responseCode = "409", description = "Book kept changing concurrently")
+    @ApiResponse(responseCode = "412", description = "Book changed since the ETag in If-Match")
     public ResponseEntity<ApiResponseDTO<BookResponseDTO>> updateBook(
             @Parameter(description = "ID of the book to update") @PathVariable UUID id,
+            @Parameter(description = "ETag of the version being edited") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Parameter(description = "Updated book details") @RequestBody @Valid BookRequestDTO bookRequestDTO) {
-        BookResponseDTO book = bookService.updateBook(id, bookRequestDTO);
+        BookResponseDTO book = bookService.updateBook(id, bookRequestDTO, EntityTag.parseVersion(ifMatch));
         ApiResponseDTO<BookResponseDTO> response = new ApiResponseDTO<>(true,
                 SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, book);
         return ResponseEntity.ok(response);
@@ -89,4 +226,15 @@ public class BookController {
         bookService.deleteBook(id);
         return ResponseEntity.noContent().build();
     }
+
+    private ResponseEntity<ApiResponseDTO<BookResponseDTO>> getBookByIdBinary(UUID id, String encoding, WebRequest request) {
+        BookResponseDTO book = bookService.getBookById(id);
+        String eTag = EntityTag.of(book.getVersion(), encoding);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        ApiResponseDTO<BookResponseDTO> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, book);
+        return ResponseEntity.ok().eTag(eTag).body(response);
+    }
 }
\ No newline at end of file
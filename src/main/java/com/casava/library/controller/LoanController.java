@@ -1,12 +1,20 @@
 package com.casava.library.controller;
 
 import com.casava.library.advice.InternalCode;
+import com.casava.library.dto.request.BatchLoanRequestDTO;
+import com.casava.library.dto.request.BatchReturnRequestDTO;
 import com.casava.library.dto.request.LoanRequestDTO;
 import com.casava.library.dto.response.ApiResponseDTO;
+import com.casava.library.dto.response.BatchLoanResponseDTO;
 import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
 import com.casava.library.dto.response.LoanResponseDTO;
+import com.casava.library.dto.response.OpenLoanCountDTO;
+import com.casava.library.dto.response.OverdueCountDTO;
 import com.casava.library.dto.response.UserResponseDTO;
 import com.casava.library.service.LoanService;
+import com.casava.library.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,36 +23,114 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
-import java.util.List;
 import java.util.UUID;
 
+import static com.casava.library.constant.Constants.DEFAULT_PAGE_SIZE;
 import static com.casava.library.constant.Constants.SUCCESS_MESSAGE;
 
 @RestController
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/loans")
 @Tag(name = "Loan", description = "Loan management APIs")
 public class LoanController {
 
     private final LoanService loanService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    @Operation(summary = "Get all loans", description = "Retrieves a list of all loans")
+    @Operation(summary = "Get all loans", description = "Retrieves a page of loans ordered by ID, optionally filtered")
     @ApiResponse(responseCode = "200", description = "Successful operation",
             content = @Content(schema = @Schema(implementation = LoanResponseDTO.class)))
-    public ResponseEntity<ApiResponseDTO<List<LoanResponseDTO>>> getAllLoans() {
-        List<LoanResponseDTO> loans = loanService.getAllLoans();
-        ApiResponseDTO<List<LoanResponseDTO>> response = new ApiResponseDTO<>(true,
+    public ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<LoanResponseDTO>>> getAllLoans(
+            @Parameter(description = "Filter by user ID") @RequestParam(required = false) UUID userId,
+            @Parameter(description = "Filter by book ID") @RequestParam(required = false) UUID bookId,
+            @Parameter(description = "Filter by returned (true) or open (false) loans") @RequestParam(required = false) Boolean returned,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of loans per page") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPageResponseDTO<LoanResponseDTO> loans = loanService.getAllLoans(userId, bookId, returned, cursor, size);
+        ApiResponseDTO<CursorPageResponseDTO<LoanResponseDTO>> response = new ApiResponseDTO<>(true,
                 SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, loans);
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/open")
+    @Operation(summary = "Get open loans", description = "Retrieves a page of loans not yet returned, oldest loan first")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = LoanResponseDTO.class)))
+    public ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<LoanResponseDTO>>> getOpenLoans(
+            @Parameter(description = "Filter by user ID") @RequestParam(required = false) UUID userId,
+            @Parameter(description = "Filter by book ID") @RequestParam(required = false) UUID bookId,
+            @Parameter(description = "Only loans past the loan period") @RequestParam(defaultValue = "false") boolean overdue,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of loans per page") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPageResponseDTO<LoanResponseDTO> loans = loanService.getOpenLoans(userId, bookId, overdue, cursor, size);
+        ApiResponseDTO<CursorPageResponseDTO<LoanResponseDTO>> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, loans);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/open/count")
+    @Operation(summary = "Count open loans", description = "Counts active and overdue loans, optionally for one user or book")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = OpenLoanCountDTO.class)))
+    public ResponseEntity<ApiResponseDTO<OpenLoanCountDTO>> countOpenLoans(
+            @Parameter(description = "Filter by user ID") @RequestParam(required = false) UUID userId,
+            @Parameter(description = "Filter by book ID") @RequestParam(required = false) UUID bookId) {
+        OpenLoanCountDTO count = loanService.countOpenLoans(userId, bookId);
+        ApiResponseDTO<OpenLoanCountDTO> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, count);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/overdue/users")
+    @Operation(summary = "Count overdue loans per user", description = "Users with overdue loans, most overdue loans first")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = OverdueCountDTO.class)))
+    public ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<OverdueCountDTO>>> getOverdueCountsByUser(
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of users per page") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPageResponseDTO<OverdueCountDTO> counts = loanService.getOverdueCountsByUser(cursor, size);
+        ApiResponseDTO<CursorPageResponseDTO<OverdueCountDTO>> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, counts);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/overdue/books")
+    @Operation(summary = "Count overdue loans per book", description = "Books with overdue loans, most overdue loans first")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = OverdueCountDTO.class)))
+    public ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<OverdueCountDTO>>> getOverdueCountsByBook(
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of books per page") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPageResponseDTO<OverdueCountDTO> counts = loanService.getOverdueCountsByBook(cursor, size);
+        ApiResponseDTO<CursorPageResponseDTO<OverdueCountDTO>> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, counts);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all loans", description = "Streams every loan as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = LoanResponseDTO.class)))
+    public ResponseEntity<StreamingResponseBody> exportLoans() {
+        StreamingResponseBody body = outputStream -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream)) {
+                loanService.exportLoans(writer::write);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get a loan by ID", description = "Retrieves a loan by its ID")
     @ApiResponse(responseCode = "200", description = "Successful operation",
@@ -70,6 +156,36 @@ public class LoanController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Record a batch of loans",
+            description = "Checks out several books in one transaction, either all-or-nothing or item by item")
+    @ApiResponse(responseCode = "200", description = "Batch processed",
+            content = @Content(schema = @Schema(implementation = BatchLoanResponseDTO.class)))
+    @ApiResponse(responseCode = "404", description = "Atomic batch references an unknown user or book")
+    @ApiResponse(responseCode = "409", description = "Atomic batch requests a book with no copies left")
+    public ResponseEntity<ApiResponseDTO<BatchLoanResponseDTO>> recordLoans(
+            @Parameter(description = "Loans to record") @RequestBody @Valid BatchLoanRequestDTO batchLoanRequestDTO) {
+        BatchLoanResponseDTO batch = loanService.recordLoans(batchLoanRequestDTO);
+        ApiResponseDTO<BatchLoanResponseDTO> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, batch);
+        return ResponseEntity.ok(response);
+    }
+
+    @PutMapping("/batch/return")
+    @Operation(summary = "Return a batch of loans",
+            description = "Marks several loans as returned in one transaction, either all-or-nothing or item by item")
+    @ApiResponse(responseCode = "200", description = "Batch processed",
+            content = @Content(schema = @Schema(implementation = BatchLoanResponseDTO.class)))
+    @ApiResponse(responseCode = "404", description = "Atomic batch references an unknown loan")
+    @ApiResponse(responseCode = "409", description = "Atomic batch contains a loan that is already returned")
+    public ResponseEntity<ApiResponseDTO<BatchLoanResponseDTO>> returnLoans(
+            @Parameter(description = "Loans to return") @RequestBody @Valid BatchReturnRequestDTO batchReturnRequestDTO) {
+        BatchLoanResponseDTO batch = loanService.returnLoans(batchReturnRequestDTO);
+        ApiResponseDTO<BatchLoanResponseDTO> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, batch);
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{id}/return")
     @Operation(summary = "Return a loan", description = "Marks a loan as returned")
     @ApiResponse(responseCode = "200", description = "Loan returned successfully",
@@ -85,13 +201,15 @@ public class LoanController {
     }
 
     @GetMapping("/user/{userId}")
-    @Operation(summary = "Get books loaned by user", description = "Retrieves a list of books loaned by a specific user")
+    @Operation(summary = "Get books loaned by user", description = "Retrieves a page of books loaned by a specific user, most recent loan first")
     @ApiResponse(responseCode = "200", description = "Successful operation",
             content = @Content(schema = @Schema(implementation = BookResponseDTO.class)))
-    public ResponseEntity<ApiResponseDTO<List<BookResponseDTO>>> getBooksLoanedByUser(
-            @Parameter(description = "ID of the user") @PathVariable UUID userId) {
-        List<BookResponseDTO> books = loanService.getBooksLoanedByUser(userId);
-        ApiResponseDTO<List<BookResponseDTO>> response = new ApiResponseDTO<>(true,
+    public ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<BookResponseDTO>>> getBooksLoanedByUser(
+            @Parameter(description = "ID of the user") @PathVariable UUID userId,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of books per page") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPageResponseDTO<BookResponseDTO> books = loanService.getBooksLoanedByUser(userId, cursor, size);
+        ApiResponseDTO<CursorPageResponseDTO<BookResponseDTO>> response = new ApiResponseDTO<>(true,
                 SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, books);
         return ResponseEntity.ok(response);
     }
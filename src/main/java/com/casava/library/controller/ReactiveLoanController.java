@@ -0,0 +1,130 @@
+package com.casava.library.controller;
+
+import com.casava.library.advice.InternalCode;
+import com.casava.library.dto.request.BatchLoanRequestDTO;
+import com.casava.library.dto.request.BatchReturnRequestDTO;
+import com.casava.library.dto.request.LoanRequestDTO;
+import com.casava.library.dto.response.ApiResponseDTO;
+import com.casava.library.dto.response.BatchLoanResponseDTO;
+import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
+import com.casava.library.dto.response.LoanResponseDTO;
+import com.casava.library.dto.response.OpenLoanCountDTO;
+import com.casava.library.dto.response.OverdueCountDTO;
+import com.casava.library.service.ReactiveLoanService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static com.casava.library.constant.Constants.DEFAULT_PAGE_SIZE;
+import static com.casava.library.constant.Constants.SUCCESS_MESSAGE;
+
+// LoanController's endpoints on WebFlux, answering with the same envelope.
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/loans")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoanController {
+
+    private final ReactiveLoanService loanService;
+
+    @GetMapping
+    public Mono<ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<LoanResponseDTO>>>> getAllLoans(
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) UUID bookId,
+            @RequestParam(required = false) Boolean returned,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return loanService.getAllLoans(userId, bookId, returned, cursor, size).map(ReactiveLoanController::ok);
+    }
+
+    @GetMapping("/open")
+    public Mono<ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<LoanResponseDTO>>>> getOpenLoans(
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) UUID bookId,
+            @RequestParam(defaultValue = "false") boolean overdue,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return loanService.getOpenLoans(userId, bookId, overdue, cursor, size).map(ReactiveLoanController::ok);
+    }
+
+    @GetMapping("/open/count")
+    public Mono<ResponseEntity<ApiResponseDTO<OpenLoanCountDTO>>> countOpenLoans(
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) UUID bookId) {
+        return loanService.countOpenLoans(userId, bookId).map(ReactiveLoanController::ok);
+    }
+
+    @GetMapping("/overdue/users")
+    public Mono<ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<OverdueCountDTO>>>> getOverdueCountsByUser(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return loanService.getOverdueCountsByUser(cursor, size).map(ReactiveLoanController::ok);
+    }
+
+    @GetMapping("/overdue/books")
+    public Mono<ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<OverdueCountDTO>>>> getOverdueCountsByBook(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return loanService.getOverdueCountsByBook(cursor, size).map(ReactiveLoanController::ok);
+    }
+
+    // Written row by row as PostgreSQL returns them, at the pace the client reads.
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<LoanResponseDTO> exportLoans() {
+        return loanService.exportLoans();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ApiResponseDTO<LoanResponseDTO>>> getLoanById(@PathVariable UUID id) {
+        return loanService.getLoanById(id).map(ReactiveLoanController::ok);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<ApiResponseDTO<LoanResponseDTO>>> recordLoan(
+            @RequestBody @Valid LoanRequestDTO loanRequestDTO) {
+        return loanService.recordLoan(loanRequestDTO).map(loan -> ResponseEntity.status(HttpStatus.CREATED)
+                .body(new ApiResponseDTO<>(true, SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, loan)));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<ApiResponseDTO<BatchLoanResponseDTO>>> recordLoans(
+            @RequestBody @Valid BatchLoanRequestDTO batchLoanRequestDTO) {
+        return loanService.recordLoans(batchLoanRequestDTO).map(ReactiveLoanController::ok);
+    }
+
+    @PutMapping("/batch/return")
+    public Mono<ResponseEntity<ApiResponseDTO<BatchLoanResponseDTO>>> returnLoans(
+            @RequestBody @Valid BatchReturnRequestDTO batchReturnRequestDTO) {
+        return loanService.returnLoans(batchReturnRequestDTO).map(ReactiveLoanController::ok);
+    }
+
+    @PutMapping("/{id}/return")
+    public Mono<ResponseEntity<ApiResponseDTO<LoanResponseDTO>>> returnLoan(
+            @PathVariable UUID id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate returnDate) {
+        return loanService.returnLoan(id, returnDate).map(ReactiveLoanController::ok);
+    }
+
+    @GetMapping("/user/{userId}")
+    public Mono<ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<BookResponseDTO>>>> getBooksLoanedByUser(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return loanService.getBooksLoanedByUser(userId, cursor, size).map(ReactiveLoanController::ok);
+    }
+
+    private static <T> ResponseEntity<ApiResponseDTO<T>> ok(T data) {
+        return ResponseEntity.ok(new ApiResponseDTO<>(true, SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, data));
+    }
+}
@@ -2,8 +2,12 @@ package com.casava.library.controller;
 
 import com.casava.library.advice.InternalCode;
 import com.casava.library.dto.request.UserRequestDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
 import com.casava.library.dto.response.UserResponseDTO;
 import com.casava.library.service.UserService;
+import com.casava.library.util.EntityTag;
+import com.casava.library.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,45 +17,94 @@ import com.casava.library.dto.response.ApiResponseDTO;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.UUID;
+import java.util.function.LongFunction;
 
+import static com.casava.library.constant.Constants.APPLICATION_SMILE_VALUE;
+import static com.casava.library.constant.Constants.CBOR_ENCODING;
+import static com.casava.library.constant.Constants.DEFAULT_PAGE_SIZE;
+import static com.casava.library.constant.Constants.SMILE_ENCODING;
 import static com.casava.library.constant.Constants.SUCCESS_MESSAGE;
 
 @RestController
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/users")
 @Tag(name = "User", description = "User management APIs")
 public class UserController {
 
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    @Operation(summary = "Get all users", description = "Retrieves a list of all users")
+    @Operation(summary = "Get all users", description = "Retrieves a page of users ordered by ID, optionally filtered")
     @ApiResponse(responseCode = "200", description = "Successful operation",
             content = @Content(schema = @Schema(implementation = UserResponseDTO.class)))
-    public ResponseEntity<ApiResponseDTO<List<UserResponseDTO>>> getAllUsers() {
-        List<UserResponseDTO> users = userService.getAllUsers();
-        ApiResponseDTO<List<UserResponseDTO>> response = new ApiResponseDTO<>(true,
+    public ResponseEntity<ApiResponseDTO<CursorPageResponseDTO<UserResponseDTO>>> getAllUsers(
+            @Parameter(description = "Filter by name") @RequestParam(required = false) String name,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of users per page") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPageResponseDTO<UserResponseDTO> users = userService.getAllUsers(name, cursor, size);
+        ApiResponseDTO<CursorPageResponseDTO<UserResponseDTO>> response = new ApiResponseDTO<>(true,
                 SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, users);
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all users", description = "Streams every user as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = UserResponseDTO.class)))
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = outputStream -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream)) {
+                userService.exportUsers(writer::write);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Declares no media type so that it stays the answer to Accept: */* or no Accept, as in BookController.
     @GetMapping("/{id}")
     @Operation(summary = "Get a user by ID", description = "Retrieves a user by their ID")
     @ApiResponse(responseCode = "200", description = "Successful operation",
             content = @Content(schema = @Schema(implementation = UserResponseDTO.class)))
+    @ApiResponse(responseCode = "304", description = "User unchanged since the ETag in If-None-Match")
     @ApiResponse(responseCode = "404", description = "User not found")
     public ResponseEntity<ApiResponseDTO<UserResponseDTO>> getUserById(
-            @Parameter(description = "ID of the user to retrieve") @PathVariable UUID id) {
-        UserResponseDTO user = userService.getUserById(id);
-        ApiResponseDTO<UserResponseDTO> response = new ApiResponseDTO<>(true,
-                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, user);
-        return ResponseEntity.ok(response);
+            @Parameter(description = "ID of the user to retrieve") @PathVariable UUID id, WebRequest request) {
+        return getUserById(id, MediaType.APPLICATION_JSON, EntityTag::of, request);
+    }
+
+    @GetMapping(value = "/{id}", produces = APPLICATION_SMILE_VALUE)
+    @Operation(summary = "Get a user by ID as Smile", description = "The user GET /users/{id} returns, encoded as Smile")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = UserResponseDTO.class)))
+    @ApiResponse(responseCode = "304", description = "User unchanged since the ETag in If-None-Match")
+    @ApiResponse(responseCode = "404", description = "User not found")
+    public ResponseEntity<ApiResponseDTO<UserResponseDTO>> getUserByIdSmile(
+            @Parameter(description = "ID of the user to retrieve") @PathVariable UUID id, WebRequest request) {
+        return getUserById(id, MediaType.valueOf(APPLICATION_SMILE_VALUE),
+                version -> EntityTag.of(version, SMILE_ENCODING), request);
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_CBOR_VALUE)
+    @Operation(summary = "Get a user by ID as CBOR", description = "The user GET /users/{id} returns, encoded as CBOR")
+    @ApiResponse(responseCode = "200", description = "Successful operation",
+            content = @Content(schema = @Schema(implementation = UserResponseDTO.class)))
+    @ApiResponse(responseCode = "304", description = "User unchanged since the ETag in If-None-Match")
+    @ApiResponse(responseCode = "404", description = "User not found")
+    public ResponseEntity<ApiResponseDTO<UserResponseDTO>> getUserByIdCbor(
+            @Parameter(description = "ID of the user to retrieve") @PathVariable UUID id, WebRequest request) {
+        return getUserById(id, MediaType.APPLICATION_CBOR, version -> EntityTag.of(version, CBOR_ENCODING), request);
     }
 
     @PostMapping
@@ -71,10 +124,13 @@ public class UserController {
     @ApiResponse(responseCode = "200", description = "User updated successfully",
             content = @Content(schema = @Schema(implementation = UserResponseDTO.class)))
     @ApiResponse(responseCode = "404", description = "User not found")
+    @ApiResponse(responseCode = "409", description = "User kept changing concurrently")
+    @ApiResponse(responseCode = "412", description = "User changed since the ETag in If-Match")
     public ResponseEntity<ApiResponseDTO<UserResponseDTO>> updateUser(
             @Parameter(description = "ID of the user to update") @PathVariable UUID id,
+            @Parameter(description = "ETag of the version being edited") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Parameter(description = "Updated user details") @RequestBody @Valid UserRequestDTO userRequestDTO) {
-        UserResponseDTO user = userService.updateUser(id, userRequestDTO);
+        UserResponseDTO user = userService.updateUser(id, userRequestDTO, EntityTag.parseVersion(ifMatch));
         ApiResponseDTO<UserResponseDTO> response = new ApiResponseDTO<>(true,
                 SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, user);
         return ResponseEntity.ok(response);
@@ -89,4 +145,16 @@ public class UserController {
         userService.deleteUser(id);
         return ResponseEntity.noContent().build();
     }
+
+    private ResponseEntity<ApiResponseDTO<UserResponseDTO>> getUserById(UUID id, MediaType mediaType,
+                                                                        LongFunction<String> eTagOf, WebRequest request) {
+        UserResponseDTO user = userService.getUserById(id);
+        String eTag = eTagOf.apply(user.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        ApiResponseDTO<UserResponseDTO> response = new ApiResponseDTO<>(true,
+                SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, user);
+        return ResponseEntity.ok().eTag(eTag).contentType(mediaType).body(response);
+    }
 }
\ No newline at end of file
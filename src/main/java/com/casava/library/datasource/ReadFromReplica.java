@@ -0,0 +1,13 @@
+package com.casava.library.datasource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a read-only service method whose transaction may be served by the replica. Repository reads default to
+// read-only transactions too, so routing is opt-in: a write path that reads before it saves stays on the primary.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadFromReplica {
+}
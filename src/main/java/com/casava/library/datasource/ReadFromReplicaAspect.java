@@ -0,0 +1,19 @@
+package com.casava.library.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+@Aspect
+public class ReadFromReplicaAspect {
+
+    @Around("@annotation(com.casava.library.datasource.ReadFromReplica)")
+    public Object readFromReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        Boolean previous = ReplicaRoutingContext.enterReplicaRead();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReplicaRoutingContext.exitReplicaRead(previous);
+        }
+    }
+}
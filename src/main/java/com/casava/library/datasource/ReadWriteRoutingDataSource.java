@@ -0,0 +1,92 @@
+package com.casava.library.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static com.casava.library.constant.Constants.DB_ROUTING_METRIC;
+
+// Hands out replica connections to read-only transactions of @ReadFromReplica methods and primary connections to
+// everything else. It sits behind a LazyConnectionDataSourceProxy, so the choice is made at the first statement,
+// once the transaction's read-only flag is known. A lagging or unreachable replica is skipped, and a committed
+// read-write transaction pins the rest of its request to the primary.
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                      MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+        this.primaryConnections = routingCounter(meterRegistry, "primary");
+        this.replicaConnections = routingCounter(meterRegistry, "replica");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (readsFromReplica()) {
+            try {
+                Connection connection = source.get(replica);
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException ex) {
+                lagMonitor.markUnusable(ex.getMessage());
+            }
+        }
+        Connection connection = source.get(primary);
+        primaryConnections.increment();
+        recordWriteOnCommit();
+        return connection;
+    }
+
+    private boolean readsFromReplica() {
+        return ReplicaRoutingContext.isReplicaRead()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReplicaRoutingContext.isPinnedToPrimary()
+                && lagMonitor.isReplicaUsable();
+    }
+
+    private static void recordWriteOnCommit() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ReplicaRoutingContext.recordWrite();
+            }
+        });
+    }
+
+    private static Counter routingCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder(DB_ROUTING_METRIC)
+                .description("Physical connections handed out, by database")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+}
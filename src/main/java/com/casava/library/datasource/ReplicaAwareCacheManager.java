@@ -0,0 +1,64 @@
+package com.casava.library.datasource;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Caffeine caches that evict a second time once the replication window has passed. A miss right after a write may
+// be filled from a replica that has not replayed the write yet, and would otherwise keep the old value cached.
+public class ReplicaAwareCacheManager extends CaffeineCacheManager {
+    private final TaskScheduler taskScheduler;
+    private final Duration window;
+
+    public ReplicaAwareCacheManager(TaskScheduler taskScheduler, Duration window) {
+        this.taskScheduler = taskScheduler;
+        this.window = window;
+    }
+
+    @Override
+    protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        return new DelayedEvictionCache(name, cache, isAllowNullValues());
+    }
+
+    private class DelayedEvictionCache extends CaffeineCache {
+
+        private DelayedEvictionCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                     boolean allowNullValues) {
+            super(name, cache, allowNullValues);
+        }
+
+        @Override
+        public void evict(Object key) {
+            super.evict(key);
+            later(() -> super.evict(key));
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean evicted = super.evictIfPresent(key);
+            later(() -> super.evict(key));
+            return evicted;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            later(super::clear);
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean invalidated = super.invalidate();
+            later(super::invalidate);
+            return invalidated;
+        }
+
+        private void later(Runnable eviction) {
+            taskScheduler.schedule(eviction, Instant.now().plus(window));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.casava.library.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+
+// Polls how far the replica trails the primary and decides whether it may serve reads. The byte distance to the
+// primary's current WAL position tells whether the replica is caught up; when it is not, the age of the last
+// replayed transaction is the lag. A replica that cannot be reached, or has been promoted, is not used.
+@Slf4j
+public class ReplicaLagMonitor {
+    private static final String PRIMARY_WAL_POSITION = "select pg_current_wal_lsn()::text";
+    private static final String REPLICA_LAG = "select pg_is_in_recovery() as standby, " +
+            "pg_wal_lsn_diff(?::pg_lsn, pg_last_wal_replay_lsn()) as bytes_behind, " +
+            "extract(epoch from now() - pg_last_xact_replay_timestamp()) as replay_age";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final Duration maxLag;
+    private volatile boolean replicaUsable;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaLagMonitor(JdbcTemplate primary, JdbcTemplate replica, Duration maxLag) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLag = maxLag;
+    }
+
+    @Scheduled(fixedDelayString = "${library.replica.lag-check-interval:PT1S}")
+    public void check() {
+        try {
+            String primaryPosition = primary.queryForObject(PRIMARY_WAL_POSITION, String.class);
+            Double lag = replica.query(REPLICA_LAG, resultSet -> {
+                resultSet.next();
+                if (!resultSet.getBoolean("standby")) {
+                    return null;
+                }
+                double bytesBehind = resultSet.getDouble("bytes_behind");
+                if (resultSet.wasNull()) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                double replayAge = resultSet.getDouble("replay_age");
+                return lagSeconds(resultSet.wasNull() ? null : replayAge, bytesBehind);
+            }, primaryPosition);
+            if (lag == null) {
+                markUnusable("replica is not in recovery");
+                return;
+            }
+            update(lag);
+        } catch (RuntimeException ex) {
+            markUnusable(ex.getMessage());
+        }
+    }
+
+    // Caught up means no lag however long ago the last write was replayed; otherwise an unknown age is unbounded.
+    static double lagSeconds(Double replayAge, double bytesBehind) {
+        if (bytesBehind <= 0) {
+            return 0;
+        }
+        return replayAge == null ? Double.POSITIVE_INFINITY : Math.max(replayAge, 0);
+    }
+
+    void update(double lag) {
+        boolean usable = lag <= maxLag.toMillis() / 1000.0;
+        if (usable != replicaUsable) {
+            log.info("Replica {} ({}s behind the primary)", usable ? "serving reads" : "lagging, reads go to the primary", lag);
+        }
+        lagSeconds = lag;
+        replicaUsable = usable;
+    }
+
+    public void markUnusable(String reason) {
+        if (replicaUsable) {
+            log.warn("Replica unavailable, reads go to the primary: {}", reason);
+        }
+        lagSeconds = Double.NaN;
+        replicaUsable = false;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+}
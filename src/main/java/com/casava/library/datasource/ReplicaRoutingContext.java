@@ -0,0 +1,66 @@
+package com.casava.library.datasource;
+
+// Thread-local routing state: whether the current call is a replica-eligible read, and whether the request it
+// belongs to has to read from the primary because it wrote, or arrived shortly after one of its client's writes.
+public final class ReplicaRoutingContext {
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+    private static final ThreadLocal<Session> SESSION = new ThreadLocal<>();
+
+    private static final class Session {
+        private boolean pinnedToPrimary;
+        private boolean wrote;
+        private final Runnable onFirstWrite;
+
+        private Session(boolean pinnedToPrimary, Runnable onFirstWrite) {
+            this.pinnedToPrimary = pinnedToPrimary;
+            this.onFirstWrite = onFirstWrite;
+        }
+    }
+
+    private ReplicaRoutingContext() {
+    }
+
+    public static void openSession(boolean pinnedToPrimary, Runnable onFirstWrite) {
+        SESSION.set(new Session(pinnedToPrimary, onFirstWrite));
+    }
+
+    public static void closeSession() {
+        SESSION.remove();
+    }
+
+    static Boolean enterReplicaRead() {
+        Boolean previous = REPLICA_READ.get();
+        REPLICA_READ.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void exitReplicaRead(Boolean previous) {
+        if (previous == null) {
+            REPLICA_READ.remove();
+        } else {
+            REPLICA_READ.set(previous);
+        }
+    }
+
+    static boolean isReplicaRead() {
+        return REPLICA_READ.get() != null;
+    }
+
+    static boolean isPinnedToPrimary() {
+        Session session = SESSION.get();
+        return session != null && session.pinnedToPrimary;
+    }
+
+    // Called once a read-write transaction has committed; every later read in the request goes to the primary.
+    static void recordWrite() {
+        Session session = SESSION.get();
+        if (session == null) {
+            return;
+        }
+        session.pinnedToPrimary = true;
+        if (!session.wrote) {
+            session.wrote = true;
+            session.onFirstWrite.run();
+        }
+    }
+}
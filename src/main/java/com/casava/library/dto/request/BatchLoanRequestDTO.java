@@ -0,0 +1,20 @@
+package com.casava.library.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+import static com.casava.library.constant.Constants.MAX_BATCH_SIZE;
+
+@Data
+public class BatchLoanRequestDTO {
+    @NotEmpty(message = "At least one loan is required")
+    @Size(max = MAX_BATCH_SIZE, message = "A batch can contain at most " + MAX_BATCH_SIZE + " loans")
+    private List<@NotNull(message = "Loan is required") @Valid LoanRequestDTO> loans;
+
+    private boolean atomic;
+}
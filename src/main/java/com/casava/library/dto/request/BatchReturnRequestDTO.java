@@ -0,0 +1,24 @@
+package com.casava.library.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static com.casava.library.constant.Constants.MAX_BATCH_SIZE;
+
+@Data
+public class BatchReturnRequestDTO {
+    @NotEmpty(message = "At least one loan ID is required")
+    @Size(max = MAX_BATCH_SIZE, message = "A batch can contain at most " + MAX_BATCH_SIZE + " loans")
+    private List<@NotNull(message = "Loan ID is required") UUID> loanIds;
+
+    @NotNull(message = "Return date is required")
+    private LocalDate returnDate;
+
+    private boolean atomic;
+}
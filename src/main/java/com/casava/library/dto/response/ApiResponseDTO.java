@@ -1,12 +1,10 @@
 package com.casava.library.dto.response;
 
 import com.casava.library.advice.InternalCode;
+import com.casava.library.util.ResponseClock;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
-import java.sql.Timestamp;
-import java.time.format.DateTimeFormatter;
-
 @Data
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class ApiResponseDTO<T> {
@@ -14,8 +12,7 @@ public class ApiResponseDTO<T> {
     private final boolean success;
     private final String message;
     private final InternalCode internalCode;
-    private final String timestamp = new Timestamp(System.currentTimeMillis())
-            .toLocalDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"));
+    private final String timestamp = ResponseClock.timestamp();
     private final T data;
 
 }
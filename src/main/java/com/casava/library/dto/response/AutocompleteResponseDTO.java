@@ -0,0 +1,13 @@
+package com.casava.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class AutocompleteResponseDTO {
+    private List<SuggestionDTO> titles;
+    private List<SuggestionDTO> authors;
+}
@@ -0,0 +1,15 @@
+package com.casava.library.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchLoanItemDTO {
+    private int index;
+    private boolean success;
+    private LoanResponseDTO loan;
+    private String message;
+}
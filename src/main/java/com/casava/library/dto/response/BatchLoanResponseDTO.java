@@ -0,0 +1,14 @@
+package com.casava.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BatchLoanResponseDTO {
+    private int succeeded;
+    private int failed;
+    private List<BatchLoanItemDTO> items;
+}
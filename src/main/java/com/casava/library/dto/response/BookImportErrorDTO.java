@@ -0,0 +1,16 @@
+package com.casava.library.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookImportErrorDTO {
+    private long row;
+    private String isbn;
+    private Map<String, String> errors;
+}
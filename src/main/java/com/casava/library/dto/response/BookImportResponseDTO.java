@@ -0,0 +1,17 @@
+package com.casava.library.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookImportResponseDTO {
+    private long received;
+    private long imported;
+    private long rejected;
+    private long elapsedMillis;
+    private List<BookImportErrorDTO> errors = new ArrayList<>();
+}
@@ -1,5 +1,6 @@
 package com.casava.library.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
@@ -14,4 +15,7 @@ public class BookResponseDTO {
     private int publishedYear;
     private String isbn;
     private int copiesAvailable;
+    // Version of the row this was read from, sent as the ETag rather than in the body.
+    @JsonIgnore
+    private long version;
 }
@@ -3,6 +3,7 @@ package com.casava.library.dto.response;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -14,4 +15,5 @@ public class LoanResponseDTO {
     private UUID userId;
     private LocalDate loanDate;
     private LocalDate returnDate;
+    private BigDecimal fine;
 }
@@ -0,0 +1,11 @@
+package com.casava.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class OpenLoanCountDTO {
+    private long activeLoans;
+    private long overdueLoans;
+}
@@ -0,0 +1,13 @@
+package com.casava.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class OverdueCountDTO {
+    private UUID id;
+    private long overdueLoans;
+}
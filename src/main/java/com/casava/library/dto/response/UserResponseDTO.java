@@ -1,5 +1,6 @@
 package com.casava.library.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
@@ -13,4 +14,7 @@ public class UserResponseDTO {
     private String name;
     private String email;
     private LocalDate membershipDate;
+    // Version of the row this was read from, sent as the ETag rather than in the body.
+    @JsonIgnore
+    private long version;
 }
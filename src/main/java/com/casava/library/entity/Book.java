@@ -4,21 +4,30 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.UUID;
+
+import static com.casava.library.constant.Constants.BOOK_ISBN_CONSTRAINT;
+
 @Setter
 @Getter
 @NoArgsConstructor
 @Entity
-@Table(name = "books")
+@Table(name = "books", uniqueConstraints = @UniqueConstraint(name = BOOK_ISBN_CONSTRAINT, columnNames = "isbn"))
 public class Book {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedUuid
     private UUID id;
     private String title;
     private String author;
     private int publishedYear;
-    @Column(unique = true)
     private String isbn;
     private int copiesAvailable;
+    // Loans ever recorded against the book, counted up by the checkout updates; autocomplete ranks by it.
+    @ColumnDefault("0")
+    private long loanCount;
+    @Version
+    @ColumnDefault("0")
+    private long version;
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.casava.library.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Checkpoint of one key range of the nightly fine run: loans in (lowerBound, upperBound] up to lastLoanId are done.
+@Setter
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "fine_run_partitions", uniqueConstraints = @UniqueConstraint(columnNames = {"runDate", "partitionIndex"}))
+public class FineRunPartition {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+    private LocalDate runDate;
+    private int partitionIndex;
+    private UUID lowerBound;
+    private UUID upperBound;
+    private UUID lastLoanId;
+    private long loansProcessed;
+    private long finesUpdated;
+    private boolean completed;
+}
@@ -1,14 +1,16 @@
 package com.casava.library.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.UUID;
 @Setter
@@ -18,11 +20,16 @@ import java.util.UUID;
 @Table(name = "loans")
 public class Loan {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedUuid
     private UUID id;
     private UUID bookId;
     private UUID userId;
     private LocalDate loanDate;
     private LocalDate returnDate;
+    @Column(precision = 10, scale = 2)
+    private BigDecimal fine;
+    @Version
+    @ColumnDefault("0")
+    private long version;
 
 }
\ No newline at end of file
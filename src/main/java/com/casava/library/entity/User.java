@@ -4,22 +4,29 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.util.UUID;
+
+import static com.casava.library.constant.Constants.USER_EMAIL_CONSTRAINT;
+
 @Setter
 @Getter
 @NoArgsConstructor
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = USER_EMAIL_CONSTRAINT, columnNames = "email"))
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedUuid
     private UUID id;
     private String name;
 
-    @Column(unique = true)
     private String email;
 
     private LocalDate membershipDate;
+
+    @Version
+    @ColumnDefault("0")
+    private long version;
 }
\ No newline at end of file
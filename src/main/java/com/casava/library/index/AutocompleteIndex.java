@@ -0,0 +1,162 @@
+package com.casava.library.index;
+
+import com.casava.library.entity.Book;
+import com.casava.library.repository.BookRepository;
+import com.casava.library.repository.projection.BookPopularity;
+import com.casava.library.util.PrefixIndex;
+import com.casava.library.util.PrefixIndex.Entry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Type-ahead over titles and authors, ranked by how often the books have been borrowed.
+// The bulk lives in immutable PrefixIndex snapshots rebuilt from the database on a schedule; books added, edited
+// or deleted since then sit in a small overlay that shadows their snapshot entry, and an author is no longer
+// suggested once the overlay leaves them without books. Popularity is the loan counter kept on each book row,
+// so a rebuild reads it rather than counting loans; it only moves on a rebuild.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AutocompleteIndex {
+    private static final Comparator<Entry> MOST_POPULAR = Comparator.comparingInt(Entry::weight).reversed()
+            .thenComparing(Entry::text, String.CASE_INSENSITIVE_ORDER);
+
+    private final BookRepository bookRepository;
+    private final Map<UUID, Change> changes = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(PrefixIndex.empty(), PrefixIndex.empty(), Map.of());
+
+    // Books per author, keyed by the folded name.
+    private record Snapshot(PrefixIndex titles, PrefixIndex authors, Map<String, Integer> authorBooks) {
+    }
+
+    // A null title marks a deleted book. The snapshot author is the one the snapshot counts the book under, null
+    // for a book added since.
+    private record Change(long sequence, String title, String author, int popularity, String snapshotAuthor) {
+    }
+
+    // Serialized so that a rebuild requested by an import cannot publish its snapshot over a newer one.
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${library.autocomplete.refresh-interval:PT15M}",
+            fixedDelayString = "${library.autocomplete.refresh-interval:PT15M}")
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        long startedAt = sequence.get();
+        List<Entry> titles = new ArrayList<>();
+        Map<String, Entry> authors = new HashMap<>();
+        Map<String, Integer> authorBooks = new HashMap<>();
+        try (Stream<BookPopularity> books = bookRepository.streamPopularity()) {
+            books.forEach(book -> {
+                int popularity = (int) Math.min(book.getLoanCount(), Integer.MAX_VALUE);
+                titles.add(new Entry(book.getTitle(), popularity, book.getId()));
+                authors.merge(fold(book.getAuthor()), new Entry(book.getAuthor(), popularity, null),
+                        (a, b) -> new Entry(a.text(), (int) Math.min((long) a.weight() + b.weight(), Integer.MAX_VALUE), null));
+                authorBooks.merge(fold(book.getAuthor()), 1, Integer::sum);
+            });
+        }
+        Snapshot rebuilt = new Snapshot(PrefixIndex.build(titles), PrefixIndex.build(new ArrayList<>(authors.values())),
+                authorBooks);
+        snapshot = rebuilt;
+        changes.values().removeIf(change -> change.sequence() <= startedAt);
+        log.info("Autocomplete index rebuilt ({} titles, {} authors, {} bytes)", rebuilt.titles().size(),
+                rebuilt.authors().size(), rebuilt.titles().sizeInBytes() + rebuilt.authors().sizeInBytes());
+    }
+
+    public List<Entry> suggestTitles(String prefix, int limit) {
+        List<Entry> suggestions = new ArrayList<>(snapshot.titles().top(prefix, limit,
+                entry -> !changes.containsKey(entry.id())));
+        changes.forEach((id, change) -> {
+            if (change.title() != null && startsWith(change.title(), prefix)) {
+                suggestions.add(new Entry(change.title(), change.popularity(), id));
+            }
+        });
+        return suggestions.stream().sorted(MOST_POPULAR).limit(limit).toList();
+    }
+
+    public List<Entry> suggestAuthors(String prefix, int limit) {
+        Snapshot current = snapshot;
+        Map<String, Integer> booksGained = new HashMap<>();
+        changes.values().forEach(change -> {
+            if (change.snapshotAuthor() != null) {
+                booksGained.merge(fold(change.snapshotAuthor()), -1, Integer::sum);
+            }
+            if (change.title() != null) {
+                booksGained.merge(fold(change.author()), 1, Integer::sum);
+            }
+        });
+        Map<String, Entry> suggestions = new LinkedHashMap<>();
+        current.authors().top(prefix, limit, entry -> {
+            String author = fold(entry.text());
+            return current.authorBooks().getOrDefault(author, 0) + booksGained.getOrDefault(author, 0) > 0;
+        }).forEach(entry -> suggestions.put(fold(entry.text()), entry));
+        changes.values().forEach(change -> {
+            if (change.title() != null && startsWith(change.author(), prefix)) {
+                suggestions.putIfAbsent(fold(change.author()), new Entry(change.author(), change.popularity(), null));
+            }
+        });
+        return suggestions.values().stream().sorted(MOST_POPULAR).limit(limit).toList();
+    }
+
+    public void addBook(Book book) {
+        afterCommit(() -> record(book.getId(), book.getTitle(), book.getAuthor(), 0, null));
+    }
+
+    public void updateBook(String previousTitle, String previousAuthor, Book book) {
+        afterCommit(() -> {
+            Change previous = changes.get(book.getId());
+            int popularity = previous != null ? previous.popularity()
+                    : snapshot.titles().weightOf(previousTitle, book.getId());
+            record(book.getId(), book.getTitle(), book.getAuthor(), popularity, previousAuthor);
+        });
+    }
+
+    public void removeBook(Book book) {
+        afterCommit(() -> record(book.getId(), null, null, 0, book.getAuthor()));
+    }
+
+    // The first change since the snapshot knows which author the snapshot counts the book under; later ones keep it.
+    private void record(UUID id, String title, String author, int popularity, String authorBefore) {
+        changes.compute(id, (key, previous) -> new Change(sequence.incrementAndGet(), title, author, popularity,
+                previous != null ? previous.snapshotAuthor() : authorBefore));
+    }
+
+    // Applied only once the write is committed, so a rebuild that starts later is guaranteed to see it.
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static boolean startsWith(String value, String prefix) {
+        return value.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    private static String fold(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
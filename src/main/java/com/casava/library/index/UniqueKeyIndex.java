@@ -0,0 +1,57 @@
+package com.casava.library.index;
+
+import com.casava.library.repository.BookRepository;
+import com.casava.library.repository.UserRepository;
+import com.casava.library.util.BloomFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+// Answers "definitely new" for ISBNs and emails so inserts can skip the existence query.
+// Until warmed every key is reported as a possible duplicate; the unique constraints stay the final guard.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UniqueKeyIndex {
+    private static final long EXPECTED_KEYS = 1_000_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final BloomFilter isbns = new BloomFilter(EXPECTED_KEYS, FALSE_POSITIVE_RATE);
+    private final BloomFilter emails = new BloomFilter(EXPECTED_KEYS, FALSE_POSITIVE_RATE);
+    private volatile boolean warm;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warm() {
+        try (Stream<String> existingIsbns = bookRepository.streamAllIsbns();
+             Stream<String> existingEmails = userRepository.streamAllEmails()) {
+            existingIsbns.forEach(isbns::put);
+            existingEmails.forEach(emails::put);
+        }
+        warm = true;
+        log.info("Unique key index warmed ({} bytes per filter)", isbns.sizeInBytes());
+    }
+
+    public boolean mightContainIsbn(String isbn) {
+        return !warm || isbns.mightContain(isbn);
+    }
+
+    public void addIsbn(String isbn) {
+        isbns.put(isbn);
+    }
+
+    public boolean mightContainEmail(String email) {
+        return !warm || emails.mightContain(email);
+    }
+
+    public void addEmail(String email) {
+        emails.put(email);
+    }
+}
@@ -0,0 +1,27 @@
+package com.casava.library.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Registered with Hibernate by class name, so the per-request tally lives in a thread local.
+public class StatementCounter implements StatementInspector {
+    private static final ThreadLocal<int[]> STATEMENTS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] statements = STATEMENTS.get();
+        if (statements != null) {
+            statements[0]++;
+        }
+        return sql;
+    }
+
+    public static void start() {
+        STATEMENTS.set(new int[1]);
+    }
+
+    public static int stop() {
+        int[] statements = STATEMENTS.get();
+        STATEMENTS.remove();
+        return statements == null ? 0 : statements[0];
+    }
+}
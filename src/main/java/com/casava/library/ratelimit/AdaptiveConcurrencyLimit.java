@@ -0,0 +1,86 @@
+package com.casava.library.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+// AIMD concurrency limit in the style of Netflix's concurrency-limits. Requests beyond the limit are shed at once.
+// A request that completes while the limit is at least half used raises it by one; one that took longer than the
+// latency threshold, or finds callers queueing for database connections, cuts it by a tenth, at most once per
+// threshold so that a burst of slow completions counts as one congestion signal.
+public class AdaptiveConcurrencyLimit {
+    private static final double BACKOFF = 0.9;
+    private static final long SAMPLE_INTERVAL_NANOS = 10_000_000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final int queueThreshold;
+    private final IntSupplier databaseWaiters;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong nextBackoff;
+    private final AtomicLong nextSample;
+    private volatile int sampledWaiters;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+                                    int queueThreshold, IntSupplier databaseWaiters, LongSupplier nanoClock) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.queueThreshold = queueThreshold;
+        this.databaseWaiters = databaseWaiters;
+        this.nanoClock = nanoClock;
+        this.limit = new AtomicInteger(Math.min(Math.max(initialLimit, minLimit), maxLimit));
+        this.nextBackoff = new AtomicLong(nanoClock.getAsLong());
+        this.nextSample = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // For requests whose latency says nothing about load, such as long-running streamed exports.
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(long latencyNanos) {
+        int usedBefore = inFlight.getAndDecrement();
+        long now = nanoClock.getAsLong();
+        if (latencyNanos > latencyThresholdNanos || databaseWaiters(now) > queueThreshold) {
+            long allowedAt = nextBackoff.get();
+            if (now - allowedAt >= 0 && nextBackoff.compareAndSet(allowedAt, now + latencyThresholdNanos)) {
+                limit.updateAndGet(current -> Math.max(minLimit, (int) (current * BACKOFF)));
+            }
+        } else if (usedBefore * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private int databaseWaiters(long now) {
+        long sampleAt = nextSample.get();
+        if (now - sampleAt >= 0 && nextSample.compareAndSet(sampleAt, now + SAMPLE_INTERVAL_NANOS)) {
+            sampledWaiters = databaseWaiters.getAsInt();
+        }
+        return sampledWaiters;
+    }
+}
@@ -0,0 +1,45 @@
+package com.casava.library.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+// Per-client token buckets kept in a fixed table of lock-free cells. A bucket is a single timestamp (GCRA: the time
+// at which it would be full again) that each admitted request pushes forward by one emission interval with a CAS,
+// so there is no lock and nothing is allocated per client. Clients are hashed onto the cells; the few that share a
+// cell share its budget.
+public class ClientRateLimiter {
+    private final AtomicLongArray cells;
+    private final int shift;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+
+    public ClientRateLimiter(int stripes, double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        if (Integer.bitCount(stripes) != 1 || stripes < 2) {
+            throw new IllegalArgumentException("stripes must be a power of two");
+        }
+        this.cells = new AtomicLongArray(stripes);
+        this.shift = Integer.numberOfLeadingZeros(stripes) + 1;
+        this.intervalNanos = Math.max((long) (1_000_000_000L / permitsPerSecond), 1);
+        this.burstNanos = intervalNanos * burst;
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+    }
+
+    // Returns 0 when the request is admitted, otherwise how long the client has to wait for its next token.
+    public long tryAcquire(String client) {
+        int cell = (client.hashCode() * 0x9E3779B9) >>> shift;
+        long now = nanoClock.getAsLong() - origin;
+        while (true) {
+            long fullAt = cells.get(cell);
+            long next = Math.max(fullAt, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return next - now - burstNanos;
+            }
+            if (cells.compareAndSet(cell, fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+}
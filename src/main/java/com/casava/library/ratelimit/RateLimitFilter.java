@@ -0,0 +1,95 @@
+package com.casava.library.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+import static com.casava.library.constant.Constants.API_KEY_HEADER;
+
+// Admission in front of every controller: a per-client token bucket keyed by API key, or by address for anonymous
+// clients and unknown keys, then the adaptive concurrency limit. The address is the one Tomcat resolved from
+// X-Forwarded-For when the request came through a trusted proxy (library.trusted-proxies). A rejected request costs a hash and a CAS and gets its 429 before any
+// service or database work. Actuator endpoints are exempt so that health probes keep answering under load.
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final ClientRateLimiter rateLimiter;
+    private final Set<String> apiKeys;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long waitNanos = rateLimiter.tryAcquire(
+                Rejection.clientKey(request.getHeader(API_KEY_HEADER), apiKeys, request.getRemoteAddr()));
+        if (waitNanos > 0) {
+            reject(response, Rejection.rateLimited(waitNanos));
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            reject(response, Rejection.OVERLOADED);
+            return;
+        }
+        long started = System.nanoTime();
+        boolean released = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+                released = true;
+            }
+        } finally {
+            if (!released) {
+                concurrencyLimit.release(System.nanoTime() - started);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, Rejection rejection) throws IOException {
+        rejection.count(meterRegistry);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(rejection.retryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), rejection.body());
+    }
+
+    // Streamed responses finish after the filter returns; their slot is held until then, without a latency sample.
+    private class ReleaseOnComplete implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            concurrencyLimit.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
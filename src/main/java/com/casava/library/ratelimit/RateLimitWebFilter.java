@@ -0,0 +1,71 @@
+package com.casava.library.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+
+import static com.casava.library.constant.Constants.API_KEY_HEADER;
+
+// RateLimitFilter for the reactive profile: the same limits and 429, applied before the exchange reaches a handler.
+@RequiredArgsConstructor
+public class RateLimitWebFilter implements WebFilter {
+    private final ClientRateLimiter rateLimiter;
+    private final Set<String> apiKeys;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getPath().pathWithinApplication().value().startsWith("/actuator")) {
+            return chain.filter(exchange);
+        }
+        long waitNanos = rateLimiter.tryAcquire(
+                Rejection.clientKey(request.getHeaders().getFirst(API_KEY_HEADER), apiKeys, remoteAddress(request)));
+        if (waitNanos > 0) {
+            return reject(exchange.getResponse(), Rejection.rateLimited(waitNanos));
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            return reject(exchange.getResponse(), Rejection.OVERLOADED);
+        }
+        long started = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            // Streamed responses and abandoned requests say nothing about load, so they leave no latency sample.
+            if (signal == SignalType.CANCEL
+                    || MediaType.APPLICATION_NDJSON.isCompatibleWith(exchange.getResponse().getHeaders().getContentType())) {
+                concurrencyLimit.release();
+            } else {
+                concurrencyLimit.release(System.nanoTime() - started);
+            }
+        });
+    }
+
+    // Set from X-Forwarded-For by TrustedProxyForwardedHandler when the request came through a trusted proxy.
+    private static String remoteAddress(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        return address == null ? "unknown" : address.getHostString();
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, Rejection rejection) {
+        rejection.count(meterRegistry);
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(rejection.retryAfterSeconds()));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.fromCallable(() ->
+                response.bufferFactory().wrap(objectMapper.writeValueAsBytes(rejection.body()))));
+    }
+}
@@ -0,0 +1,33 @@
+package com.casava.library.ratelimit;
+
+import com.casava.library.advice.ErrorResponse;
+import com.casava.library.advice.InternalCode;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.casava.library.constant.Constants.*;
+
+// Why a request was turned away and what it is told, whichever web stack it arrived on.
+record Rejection(String reason, String message, long retryAfterSeconds) {
+    static final Rejection OVERLOADED = new Rejection("overload", OVERLOADED_MESSAGE, 1);
+
+    static Rejection rateLimited(long waitNanos) {
+        return new Rejection("rate-limit", RATE_LIMITED_MESSAGE, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1);
+    }
+
+    // Only a configured key gets a bucket of its own; any other value would let a client start afresh at will.
+    static String clientKey(String apiKey, Set<String> knownApiKeys, String remoteAddress) {
+        return apiKey != null && knownApiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + remoteAddress;
+    }
+
+    void count(MeterRegistry meterRegistry) {
+        meterRegistry.counter(REQUESTS_REJECTED_METRIC, "reason", reason).increment();
+        meterRegistry.counter(ERRORS_METRIC, "code", InternalCode.CASAVA_LIB_010.name()).increment();
+    }
+
+    ErrorResponse body() {
+        return new ErrorResponse(false, InternalCode.CASAVA_LIB_010, ERROR_MESSAGE + message, null);
+    }
+}
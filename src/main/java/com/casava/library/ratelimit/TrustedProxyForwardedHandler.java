@@ -0,0 +1,47 @@
+package com.casava.library.ratelimit;
+
+import io.netty.handler.codec.http.HttpRequest;
+import lombok.RequiredArgsConstructor;
+import reactor.netty.http.server.ConnectionInfo;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+// X-Forwarded-For for the reactive profile, read the way Tomcat's RemoteIpValve reads it for the servlet stack: only
+// when the connection comes from a trusted proxy, and from the right, taking the first hop no trusted proxy added.
+// Reactor Netty's own handler believes whoever sends the header, which would let a client pick its rate-limit bucket.
+@RequiredArgsConstructor
+public class TrustedProxyForwardedHandler implements BiFunction<ConnectionInfo, HttpRequest, ConnectionInfo> {
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final Pattern trustedProxies;
+
+    @Override
+    public ConnectionInfo apply(ConnectionInfo connectionInfo, HttpRequest request) {
+        InetSocketAddress peer = connectionInfo.getRemoteAddress();
+        if (peer == null || !isTrusted(peer.getHostString())) {
+            return connectionInfo;
+        }
+        List<String> hops = new ArrayList<>();
+        for (String header : request.headers().getAll(X_FORWARDED_FOR)) {
+            for (String hop : header.split(",")) {
+                if (!hop.isBlank()) {
+                    hops.add(hop.strip());
+                }
+            }
+        }
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            if (!isTrusted(hops.get(i))) {
+                return connectionInfo.withRemoteAddress(InetSocketAddress.createUnresolved(hops.get(i), peer.getPort()));
+            }
+        }
+        return connectionInfo;
+    }
+
+    private boolean isTrusted(String address) {
+        return trustedProxies.matcher(address).matches();
+    }
+}
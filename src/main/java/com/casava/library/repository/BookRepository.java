@@ -1,9 +1,103 @@
 package com.casava.library.repository;
 
 import com.casava.library.entity.Book;
+import com.casava.library.repository.projection.BookPopularity;
+import com.casava.library.repository.projection.BookSearchHit;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.casava.library.constant.Constants.EXPORT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface BookRepository extends JpaRepository<Book, UUID> {
     boolean existsByIsbn(String isbn);
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findExistingIsbns(Collection<String> isbns);
+
+    @Modifying
+    @Query("update versioned Book b set b.copiesAvailable = b.copiesAvailable - 1, b.loanCount = b.loanCount + 1 " +
+            "where b.id = :id and b.copiesAvailable > 0")
+    int reserveCopy(UUID id);
+
+    @Modifying
+    @Query("update versioned Book b set b.copiesAvailable = b.copiesAvailable + 1 where b.id = :id")
+    int releaseCopy(UUID id);
+
+    @Query("select b.id from Book b where b.id in :ids")
+    Set<UUID> findExistingIds(Collection<UUID> ids);
+
+    @Modifying
+    @Query("update versioned Book b set b.copiesAvailable = b.copiesAvailable - :count, " +
+            "b.loanCount = b.loanCount + :count where b.id = :id and b.copiesAvailable >= :count")
+    int reserveCopies(UUID id, int count);
+
+    @Modifying
+    @Query("update versioned Book b set b.copiesAvailable = b.copiesAvailable + :count where b.id = :id")
+    int releaseCopies(UUID id, int count);
+
+    @Query("select b from Book b where b.id > :after " +
+            "and (:author is null or lower(b.author) = lower(cast(:author as String))) " +
+            "and (:publishedYear is null or b.publishedYear = :publishedYear) " +
+            "order by b.id")
+    List<Book> findPageAfter(UUID after, String author, Integer publishedYear, Pageable pageable);
+
+    // PostgreSQL only: search_document is a generated tsvector column with a GIN index (V2__book_search_indexes.sql).
+    // Every match is ranked, so each page is cut from the same order and the best match comes first; only the page is
+    // kept while sorting. How deep a search can be paged is capped in BookServiceImpl (MAX_SEARCH_RESULTS).
+    @Query(value = """
+            with matches as (
+                select b.id, b.title, b.author, b.published_year, b.isbn, b.copies_available,
+                       cast(ts_rank_cd(b.search_document, query) as double precision) as score
+                from books b, websearch_to_tsquery('simple', :term) query
+                where b.search_document @@ query
+            )
+            select id, title, author, published_year as publishedYear, isbn, copies_available as copiesAvailable, score
+            from matches
+            where score < :beforeScore or (score = :beforeScore and id > :afterId)
+            order by score desc, id
+            """, nativeQuery = true)
+    List<BookSearchHit> searchFullText(String term, double beforeScore, UUID afterId, Pageable pageable);
+
+    // PostgreSQL only: <% (word similarity) is served by the pg_trgm GIN indexes on title and author.
+    @Query(value = """
+            with matches as (
+                select b.id, b.title, b.author, b.published_year, b.isbn, b.copies_available,
+                       cast(greatest(word_similarity(:term, b.title), word_similarity(:term, b.author))
+                            as double precision) as score
+                from books b
+                where :term <% b.title or :term <% b.author
+            )
+            select id, title, author, published_year as publishedYear, isbn, copies_available as copiesAvailable, score
+            from matches
+            where score < :beforeScore or (score = :beforeScore and id > :afterId)
+            order by score desc, id
+            """, nativeQuery = true)
+    List<BookSearchHit> searchSimilar(String term, double beforeScore, UUID afterId, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAll();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select b.isbn from Book b")
+    Stream<String> streamAllIsbns();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select b.id as id, b.title as title, b.author as author, b.loanCount as loanCount from Book b")
+    Stream<BookPopularity> streamPopularity();
 }
\ No newline at end of file
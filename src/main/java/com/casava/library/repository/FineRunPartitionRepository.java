@@ -0,0 +1,27 @@
+package com.casava.library.repository;
+
+import com.casava.library.entity.FineRunPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface FineRunPartitionRepository extends JpaRepository<FineRunPartition, UUID> {
+    List<FineRunPartition> findByRunDateOrderByPartitionIndex(LocalDate runDate);
+
+    Optional<FineRunPartition> findFirstByCompletedFalseOrderByRunDateDesc();
+
+    @Modifying
+    @Query("delete from FineRunPartition p where p.runDate < :runDate")
+    int deleteRunsBefore(LocalDate runDate);
+
+    @Modifying
+    @Query("update FineRunPartition p set p.lastLoanId = :lastLoanId, " +
+            "p.loansProcessed = p.loansProcessed + :loansProcessed, p.finesUpdated = p.finesUpdated + :finesUpdated, " +
+            "p.completed = :completed where p.id = :id")
+    int checkpoint(UUID id, UUID lastLoanId, long loansProcessed, long finesUpdated, boolean completed);
+}
@@ -1,10 +1,102 @@
 package com.casava.library.repository;
 
 import com.casava.library.entity.Loan;
+import com.casava.library.repository.projection.LoanedBook;
+import com.casava.library.repository.projection.OpenLoanCount;
+import com.casava.library.repository.projection.OverdueCount;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.casava.library.constant.Constants.EXPORT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface LoanRepository extends JpaRepository<Loan, UUID> {
-    List<Loan> findByUserId(UUID userId);
+    @Modifying
+    @Query("update versioned Loan l set l.returnDate = :returnDate where l.id = :id and l.returnDate is null")
+    int markReturned(UUID id, LocalDate returnDate);
+
+    @Modifying
+    @Query("update versioned Loan l set l.returnDate = :returnDate where l.id in :ids and l.returnDate is null")
+    int markAllReturned(Collection<UUID> ids, LocalDate returnDate);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Loan l where l.id in :ids order by l.id")
+    List<Loan> findAllForUpdate(Collection<UUID> ids);
+
+    @Query("select new com.casava.library.repository.projection.LoanedBook(l.id, l.loanDate, b.id, b.title, " +
+            "b.author, b.publishedYear, b.isbn, b.copiesAvailable) " +
+            "from Loan l join Book b on b.id = l.bookId " +
+            "where l.userId = :userId " +
+            "and (l.loanDate < :beforeLoanDate or (l.loanDate = :beforeLoanDate and l.id < :beforeLoanId)) " +
+            "order by l.loanDate desc, l.id desc")
+    List<LoanedBook> findLoanedBooksBefore(UUID userId, LocalDate beforeLoanDate, UUID beforeLoanId, Pageable pageable);
+
+    @Query("select l from Loan l where l.id > :after " +
+            "and (:userId is null or l.userId = :userId) " +
+            "and (:bookId is null or l.bookId = :bookId) " +
+            "and (:returned is null or (:returned = true and l.returnDate is not null) " +
+            "or (:returned = false and l.returnDate is null)) " +
+            "order by l.id")
+    List<Loan> findPageAfter(UUID after, UUID userId, UUID bookId, Boolean returned, Pageable pageable);
+
+    // Open-loan queries are served by the partial indexes on "return_date is null" (V3__open_loan_indexes.sql);
+    // the row comparison lets the index seek straight to the cursor instead of filtering earlier rows.
+    @Query("select l from Loan l where l.returnDate is null and l.loanDate < :dueBefore " +
+            "and (l.loanDate, l.id) > (:afterLoanDate, :afterId) order by l.loanDate, l.id")
+    List<Loan> findOpenAfter(LocalDate dueBefore, LocalDate afterLoanDate, UUID afterId, Pageable pageable);
+
+    @Query("select l from Loan l where l.userId = :userId and l.returnDate is null and l.loanDate < :dueBefore " +
+            "and (l.loanDate, l.id) > (:afterLoanDate, :afterId) order by l.loanDate, l.id")
+    List<Loan> findOpenByUserAfter(UUID userId, LocalDate dueBefore, LocalDate afterLoanDate, UUID afterId,
+                                   Pageable pageable);
+
+    @Query("select l from Loan l where l.bookId = :bookId and l.returnDate is null and l.loanDate < :dueBefore " +
+            "and (l.loanDate, l.id) > (:afterLoanDate, :afterId) order by l.loanDate, l.id")
+    List<Loan> findOpenByBookAfter(UUID bookId, LocalDate dueBefore, LocalDate afterLoanDate, UUID afterId,
+                                   Pageable pageable);
+
+    @Query("select count(l) as activeLoans, " +
+            "coalesce(sum(case when l.loanDate < :dueBefore then 1 else 0 end), 0) as overdueLoans " +
+            "from Loan l where l.returnDate is null")
+    OpenLoanCount countOpen(LocalDate dueBefore);
+
+    @Query("select count(l) as activeLoans, " +
+            "coalesce(sum(case when l.loanDate < :dueBefore then 1 else 0 end), 0) as overdueLoans " +
+            "from Loan l where l.userId = :userId and l.returnDate is null")
+    OpenLoanCount countOpenByUser(UUID userId, LocalDate dueBefore);
+
+    @Query("select count(l) as activeLoans, " +
+            "coalesce(sum(case when l.loanDate < :dueBefore then 1 else 0 end), 0) as overdueLoans " +
+            "from Loan l where l.bookId = :bookId and l.returnDate is null")
+    OpenLoanCount countOpenByBook(UUID bookId, LocalDate dueBefore);
+
+    @Query("select l.userId as id, count(l) as overdueLoans from Loan l " +
+            "where l.returnDate is null and l.loanDate < :dueBefore group by l.userId " +
+            "having count(l) < :beforeCount or (count(l) = :beforeCount and l.userId > :afterId) " +
+            "order by count(l) desc, l.userId")
+    List<OverdueCount> countOverdueByUser(LocalDate dueBefore, long beforeCount, UUID afterId, Pageable pageable);
+
+    @Query("select l.bookId as id, count(l) as overdueLoans from Loan l " +
+            "where l.returnDate is null and l.loanDate < :dueBefore group by l.bookId " +
+            "having count(l) < :beforeCount or (count(l) = :beforeCount and l.bookId > :afterId) " +
+            "order by count(l) desc, l.bookId")
+    List<OverdueCount> countOverdueByBook(LocalDate dueBefore, long beforeCount, UUID afterId, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select l from Loan l order by l.id")
+    Stream<Loan> streamAll();
 }
\ No newline at end of file
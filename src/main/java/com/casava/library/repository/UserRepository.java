@@ -1,9 +1,40 @@
 package com.casava.library.repository;
 
 import com.casava.library.entity.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.casava.library.constant.Constants.EXPORT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByEmail(String email);
+
+    @Query("select u.id from User u where u.id in :ids")
+    Set<UUID> findExistingIds(Collection<UUID> ids);
+
+    @Query("select u from User u where u.id > :after " +
+            "and (:name is null or lower(u.name) = lower(cast(:name as String))) " +
+            "order by u.id")
+    List<User> findPageAfter(UUID after, String name, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAll();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
 }
\ No newline at end of file
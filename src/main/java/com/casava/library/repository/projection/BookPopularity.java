@@ -0,0 +1,10 @@
+package com.casava.library.repository.projection;
+
+import java.util.UUID;
+
+public interface BookPopularity {
+    UUID getId();
+    String getTitle();
+    String getAuthor();
+    long getLoanCount();
+}
@@ -0,0 +1,13 @@
+package com.casava.library.repository.projection;
+
+import java.util.UUID;
+
+public interface BookSearchHit {
+    UUID getId();
+    String getTitle();
+    String getAuthor();
+    int getPublishedYear();
+    String getIsbn();
+    int getCopiesAvailable();
+    double getScore();
+}
@@ -0,0 +1,8 @@
+package com.casava.library.repository.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record LoanedBook(UUID loanId, LocalDate loanDate, UUID bookId, String title, String author,
+                         int publishedYear, String isbn, int copiesAvailable) {
+}
@@ -0,0 +1,6 @@
+package com.casava.library.repository.projection;
+
+public interface OpenLoanCount {
+    long getActiveLoans();
+    long getOverdueLoans();
+}
@@ -0,0 +1,8 @@
+package com.casava.library.repository.projection;
+
+import java.util.UUID;
+
+public interface OverdueCount {
+    UUID getId();
+    long getOverdueLoans();
+}
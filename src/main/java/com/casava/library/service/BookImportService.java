@@ -0,0 +1,10 @@
+package com.casava.library.service;
+
+import com.casava.library.dto.response.BookImportResponseDTO;
+
+import java.io.InputStream;
+
+public interface BookImportService {
+    BookImportResponseDTO importJson(InputStream inputStream);
+    BookImportResponseDTO importCsv(InputStream inputStream);
+}
@@ -0,0 +1,11 @@
+package com.casava.library.service;
+
+import com.casava.library.util.EncodedPage;
+import com.casava.library.util.VersionedJson;
+
+import java.util.UUID;
+
+public interface BookJsonService {
+    EncodedPage getAllBooks(String author, Integer publishedYear, String cursor, int size);
+    VersionedJson getBookById(UUID id);
+}
@@ -1,15 +1,20 @@
 package com.casava.library.service;
 
 import com.casava.library.dto.request.BookRequestDTO;
+import com.casava.library.dto.response.AutocompleteResponseDTO;
 import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
 
-import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface BookService {
-    List<BookResponseDTO> getAllBooks();
+    CursorPageResponseDTO<BookResponseDTO> getAllBooks(String author, Integer publishedYear, String cursor, int size);
+    CursorPageResponseDTO<BookResponseDTO> searchBooks(String query, String cursor, int size);
+    AutocompleteResponseDTO autocomplete(String prefix, int limit);
     BookResponseDTO getBookById(UUID id);
     BookResponseDTO addBook(BookRequestDTO bookRequestDTO);
-    BookResponseDTO updateBook(UUID id, BookRequestDTO bookRequestDTO);
+    BookResponseDTO updateBook(UUID id, BookRequestDTO bookRequestDTO, Long expectedVersion);
     void deleteBook(UUID id);
+    void exportBooks(Consumer<BookResponseDTO> consumer);
 }
@@ -1,17 +1,30 @@
 package com.casava.library.service;
 
+import com.casava.library.dto.request.BatchLoanRequestDTO;
+import com.casava.library.dto.request.BatchReturnRequestDTO;
 import com.casava.library.dto.request.LoanRequestDTO;
+import com.casava.library.dto.response.BatchLoanResponseDTO;
 import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
 import com.casava.library.dto.response.LoanResponseDTO;
+import com.casava.library.dto.response.OpenLoanCountDTO;
+import com.casava.library.dto.response.OverdueCountDTO;
 
 import java.time.LocalDate;
-import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface LoanService {
-    List<LoanResponseDTO> getAllLoans();
+    CursorPageResponseDTO<LoanResponseDTO> getAllLoans(UUID userId, UUID bookId, Boolean returned, String cursor, int size);
     LoanResponseDTO getLoanById(UUID id);
     LoanResponseDTO recordLoan(LoanRequestDTO loanRequestDTO);
     LoanResponseDTO returnLoan(UUID id, LocalDate returnDate);
-    List<BookResponseDTO> getBooksLoanedByUser(UUID userId);
+    BatchLoanResponseDTO recordLoans(BatchLoanRequestDTO batchLoanRequestDTO);
+    BatchLoanResponseDTO returnLoans(BatchReturnRequestDTO batchReturnRequestDTO);
+    CursorPageResponseDTO<BookResponseDTO> getBooksLoanedByUser(UUID userId, String cursor, int size);
+    CursorPageResponseDTO<LoanResponseDTO> getOpenLoans(UUID userId, UUID bookId, boolean overdue, String cursor, int size);
+    OpenLoanCountDTO countOpenLoans(UUID userId, UUID bookId);
+    CursorPageResponseDTO<OverdueCountDTO> getOverdueCountsByUser(String cursor, int size);
+    CursorPageResponseDTO<OverdueCountDTO> getOverdueCountsByBook(String cursor, int size);
+    void exportLoans(Consumer<LoanResponseDTO> consumer);
 }
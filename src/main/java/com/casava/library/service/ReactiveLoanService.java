@@ -0,0 +1,31 @@
+package com.casava.library.service;
+
+import com.casava.library.dto.request.BatchLoanRequestDTO;
+import com.casava.library.dto.request.BatchReturnRequestDTO;
+import com.casava.library.dto.request.LoanRequestDTO;
+import com.casava.library.dto.response.BatchLoanResponseDTO;
+import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
+import com.casava.library.dto.response.LoanResponseDTO;
+import com.casava.library.dto.response.OpenLoanCountDTO;
+import com.casava.library.dto.response.OverdueCountDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public interface ReactiveLoanService {
+    Mono<CursorPageResponseDTO<LoanResponseDTO>> getAllLoans(UUID userId, UUID bookId, Boolean returned, String cursor, int size);
+    Mono<LoanResponseDTO> getLoanById(UUID id);
+    Mono<LoanResponseDTO> recordLoan(LoanRequestDTO loanRequestDTO);
+    Mono<LoanResponseDTO> returnLoan(UUID id, LocalDate returnDate);
+    Mono<BatchLoanResponseDTO> recordLoans(BatchLoanRequestDTO batchLoanRequestDTO);
+    Mono<BatchLoanResponseDTO> returnLoans(BatchReturnRequestDTO batchReturnRequestDTO);
+    Mono<CursorPageResponseDTO<BookResponseDTO>> getBooksLoanedByUser(UUID userId, String cursor, int size);
+    Mono<CursorPageResponseDTO<LoanResponseDTO>> getOpenLoans(UUID userId, UUID bookId, boolean overdue, String cursor, int size);
+    Mono<OpenLoanCountDTO> countOpenLoans(UUID userId, UUID bookId);
+    Mono<CursorPageResponseDTO<OverdueCountDTO>> getOverdueCountsByUser(String cursor, int size);
+    Mono<CursorPageResponseDTO<OverdueCountDTO>> getOverdueCountsByBook(String cursor, int size);
+    Flux<LoanResponseDTO> exportLoans();
+}
@@ -1,15 +1,17 @@
 package com.casava.library.service;
 
 import com.casava.library.dto.request.UserRequestDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
 import com.casava.library.dto.response.UserResponseDTO;
 
-import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface UserService {
-    List<UserResponseDTO> getAllUsers();
+    CursorPageResponseDTO<UserResponseDTO> getAllUsers(String name, String cursor, int size);
     UserResponseDTO getUserById(UUID id);
     UserResponseDTO addUser(UserRequestDTO userRequestDTO);
-    UserResponseDTO updateUser(UUID id, UserRequestDTO userRequestDTO);
+    UserResponseDTO updateUser(UUID id, UserRequestDTO userRequestDTO, Long expectedVersion);
     void deleteUser(UUID id);
+    void exportUsers(Consumer<UserResponseDTO> consumer);
 }
@@ -0,0 +1,291 @@
+package com.casava.library.service.serviceImpl;
+
+import com.casava.library.dto.request.BookRequestDTO;
+import com.casava.library.dto.response.BookImportErrorDTO;
+import com.casava.library.dto.response.BookImportResponseDTO;
+import com.casava.library.entity.Book;
+import com.casava.library.index.AutocompleteIndex;
+import com.casava.library.index.UniqueKeyIndex;
+import com.casava.library.repository.BookRepository;
+import com.casava.library.service.BookImportService;
+import com.casava.library.util.IntegrityViolations;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.casava.library.constant.Constants.AUTOCOMPLETE_OVERLAY_IMPORT_LIMIT;
+import static com.casava.library.constant.Constants.BOOK_ISBN_CONSTRAINT;
+import static com.casava.library.constant.Constants.BOOK_PAGE_JSON_CACHE;
+import static com.casava.library.constant.Constants.IMPORT_CHUNK_SIZE;
+import static com.casava.library.constant.Constants.MAX_IMPORT_ERRORS;
+import static com.casava.library.service.serviceImpl.BookServiceImpl.getBookEntity;
+
+@Service
+@RequiredArgsConstructor
+public class BookImportServiceImpl implements BookImportService {
+    private static final List<String> CSV_COLUMNS = List.of("title", "author", "publishedyear", "isbn", "copiesavailable");
+    private static final String DUPLICATE_ISBN_MESSAGE = "Book with this isbn already exists";
+
+    private final BookRepository bookRepository;
+    private final UniqueKeyIndex uniqueKeyIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    @CacheEvict(cacheNames = BOOK_PAGE_JSON_CACHE, allEntries = true)
+    public BookImportResponseDTO importJson(InputStream inputStream) {
+        ImportRun run = new ImportRun();
+        try (JsonParser parser = objectMapper.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Request body must be a JSON array of books");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IOException("Unexpected end of JSON array");
+                }
+                long row = run.received + 1;
+                JsonNode node = objectMapper.readTree(parser);
+                try {
+                    submit(run, row, objectMapper.treeToValue(node, BookRequestDTO.class));
+                } catch (JsonProcessingException ex) {
+                    run.reject(row, node.path("isbn").asText(null), Map.of("book", "Unreadable book: " + ex.getOriginalMessage()));
+                }
+            }
+        } catch (IOException ex) {
+            run.reject(run.received + 1, null, Map.of("body", "Malformed JSON, import stopped: " + ex.getMessage()));
+        }
+        return finish(run);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = BOOK_PAGE_JSON_CACHE, allEntries = true)
+    public BookImportResponseDTO importCsv(InputStream inputStream) {
+        ImportRun run = new ImportRun();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV header row is required");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> headerFields = parseCsvLine(header);
+            for (int i = 0; i < headerFields.size(); i++) {
+                columns.put(headerFields.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.keySet().containsAll(CSV_COLUMNS)) {
+                throw new IllegalArgumentException("CSV header must contain title, author, publishedYear, isbn and copiesAvailable");
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                long row = run.received + 1;
+                List<String> fields = parseCsvLine(line);
+                Map<String, String> errors = new HashMap<>();
+                BookRequestDTO bookRequestDTO = new BookRequestDTO();
+                bookRequestDTO.setTitle(csvField(fields, columns, "title"));
+                bookRequestDTO.setAuthor(csvField(fields, columns, "author"));
+                bookRequestDTO.setIsbn(csvField(fields, columns, "isbn"));
+                bookRequestDTO.setPublishedYear(csvInt(fields, columns, "publishedyear", "publishedYear", errors));
+                bookRequestDTO.setCopiesAvailable(csvInt(fields, columns, "copiesavailable", "copiesAvailable", errors));
+                if (errors.isEmpty()) {
+                    submit(run, row, bookRequestDTO);
+                } else {
+                    run.reject(row, bookRequestDTO.getIsbn(), errors);
+                }
+            }
+        } catch (IOException ex) {
+            run.reject(run.received + 1, null, Map.of("body", "Unreadable CSV, import stopped: " + ex.getMessage()));
+        }
+        return finish(run);
+    }
+
+    private void submit(ImportRun run, long row, BookRequestDTO bookRequestDTO) {
+        Set<ConstraintViolation<BookRequestDTO>> violations = validator.validate(bookRequestDTO);
+        if (!violations.isEmpty()) {
+            Map<String, String> errors = new HashMap<>();
+            violations.forEach(violation -> errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+            run.reject(row, bookRequestDTO.getIsbn(), errors);
+            return;
+        }
+        if (!run.seenIsbns.add(bookRequestDTO.getIsbn())) {
+            run.reject(row, bookRequestDTO.getIsbn(), Map.of("isbn", "Isbn appears more than once in this import"));
+            return;
+        }
+        run.received++;
+        run.pending.add(new PendingRow(row, bookRequestDTO));
+        if (run.pending.size() >= IMPORT_CHUNK_SIZE) {
+            flushChunk(run);
+        }
+    }
+
+    private void flushChunk(ImportRun run) {
+        List<PendingRow> chunk = run.pending;
+        run.pending = new ArrayList<>();
+
+        List<String> possibleDuplicates = chunk.stream()
+                .map(pendingRow -> pendingRow.book().getIsbn())
+                .filter(uniqueKeyIndex::mightContainIsbn)
+                .toList();
+        Set<String> existingIsbns = possibleDuplicates.isEmpty()
+                ? Set.of() : bookRepository.findExistingIsbns(possibleDuplicates);
+
+        List<PendingRow> accepted = new ArrayList<>();
+        for (PendingRow pendingRow : chunk) {
+            if (existingIsbns.contains(pendingRow.book().getIsbn())) {
+                run.rejectReceived(pendingRow.row(), pendingRow.book().getIsbn(), Map.of("isbn", DUPLICATE_ISBN_MESSAGE));
+            } else {
+                accepted.add(pendingRow);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            insert(accepted);
+            run.imported += accepted.size();
+        } catch (DataIntegrityViolationException ex) {
+            // A concurrent writer claimed one of the isbns; fall back to row-by-row inserts to pinpoint it.
+            entityManager.clear();
+            for (PendingRow pendingRow : accepted) {
+                try {
+                    insert(List.of(pendingRow));
+                    run.imported++;
+                } catch (DataIntegrityViolationException rowEx) {
+                    if (!IntegrityViolations.isUniqueViolation(rowEx, BOOK_ISBN_CONSTRAINT)) {
+                        throw rowEx;
+                    }
+                    entityManager.clear();
+                    run.rejectReceived(pendingRow.row(), pendingRow.book().getIsbn(), Map.of("isbn", DUPLICATE_ISBN_MESSAGE));
+                }
+            }
+        }
+    }
+
+    private void insert(List<PendingRow> rows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Book> books = rows.stream().map(pendingRow -> getBookEntity(pendingRow.book())).toList();
+            bookRepository.saveAllAndFlush(books);
+            books.forEach(autocompleteIndex::addBook);
+            entityManager.clear();
+        });
+        rows.forEach(pendingRow -> uniqueKeyIndex.addIsbn(pendingRow.book().getIsbn()));
+    }
+
+    private BookImportResponseDTO finish(ImportRun run) {
+        if (!run.pending.isEmpty()) {
+            flushChunk(run);
+        }
+        // Every suggestion scans the autocomplete overlay, so a large import is folded into a new snapshot instead.
+        if (run.imported >= AUTOCOMPLETE_OVERLAY_IMPORT_LIMIT) {
+            autocompleteIndex.rebuild();
+        }
+        BookImportResponseDTO response = new BookImportResponseDTO();
+        response.setReceived(run.received);
+        response.setImported(run.imported);
+        response.setRejected(run.rejected);
+        response.setErrors(run.errors);
+        response.setElapsedMillis((System.nanoTime() - run.startedAt) / 1_000_000);
+        return response;
+    }
+
+    private static String csvField(List<String> fields, Map<String, Integer> columns, String column) {
+        int index = columns.get(column);
+        if (index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static int csvInt(List<String> fields, Map<String, Integer> columns, String column, String fieldName,
+                              Map<String, String> errors) {
+        String value = csvField(fields, columns, column);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            errors.put(fieldName, fieldName + " must be a whole number");
+            return 0;
+        }
+    }
+
+    // RFC 4180 fields on a single line: quoted fields may contain commas and doubled quotes.
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record PendingRow(long row, BookRequestDTO book) {
+    }
+
+    private static class ImportRun {
+        private final long startedAt = System.nanoTime();
+        private final Set<String> seenIsbns = new HashSet<>();
+        private final List<BookImportErrorDTO> errors = new ArrayList<>();
+        private List<PendingRow> pending = new ArrayList<>();
+        private long received;
+        private long imported;
+        private long rejected;
+
+        private void reject(long row, String isbn, Map<String, String> rowErrors) {
+            received++;
+            rejectReceived(row, isbn, rowErrors);
+        }
+
+        private void rejectReceived(long row, String isbn, Map<String, String> rowErrors) {
+            rejected++;
+            if (errors.size() < MAX_IMPORT_ERRORS) {
+                errors.add(new BookImportErrorDTO(row, isbn, rowErrors));
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.casava.library.service.serviceImpl;
+
+import com.casava.library.service.BookJsonService;
+import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
+import com.casava.library.service.BookService;
+import com.casava.library.util.EncodedPage;
+import com.casava.library.util.VersionedJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.casava.library.constant.Constants.BOOK_JSON_CACHE;
+import static com.casava.library.constant.Constants.BOOK_PAGE_JSON_CACHE;
+import static com.casava.library.constant.Constants.SERVICE_TIMER;
+
+// Keeps hot catalog reads as ready-encoded JSON so a cache hit skips Jackson entirely.
+// Entries are evicted alongside the book cache on every book write; a loan checkout or return only drops the pages
+// that list the book.
+@Service
+@RequiredArgsConstructor
+@Timed(value = SERVICE_TIMER, histogram = true)
+public class BookJsonServiceImpl implements BookJsonService {
+    private final BookService bookService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Cacheable(cacheNames = BOOK_PAGE_JSON_CACHE, key = "{#author, #publishedYear, #cursor, #size}")
+    public EncodedPage getAllBooks(String author, Integer publishedYear, String cursor, int size) {
+        CursorPageResponseDTO<BookResponseDTO> page = bookService.getAllBooks(author, publishedYear, cursor, size);
+        Set<UUID> bookIds = page.getItems().stream().map(BookResponseDTO::getId).collect(Collectors.toUnmodifiableSet());
+        return new EncodedPage(encode(page), bookIds);
+    }
+
+    @Override
+    @Cacheable(cacheNames = BOOK_JSON_CACHE, key = "#id")
+    public VersionedJson getBookById(UUID id) {
+        BookResponseDTO book = bookService.getBookById(id);
+        return new VersionedJson(book.getVersion(), encode(book));
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -1,38 +1,143 @@
 package com.casava.library.service.serviceImpl;
 
 import com.casava.library.dto.request.BookRequestDTO;
+import com.casava.library.dto.response.AutocompleteResponseDTO;
 import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
+import com.casava.library.dto.response.SuggestionDTO;
 import com.casava.library.entity.Book;
+import com.casava.library.datasource.ReadFromReplica;
 import com.casava.library.exception.ResourceAlreadyExistException;
 import com.casava.library.exception.ResourceNotFoundException;
+import com.casava.library.index.AutocompleteIndex;
+import com.casava.library.index.UniqueKeyIndex;
 import com.casava.library.repository.BookRepository;
+import com.casava.library.repository.projection.BookSearchHit;
+import com.casava.library.util.IntegrityViolations;
+import com.casava.library.util.OptimisticLocking;
+import com.casava.library.util.PrefixIndex;
 import com.casava.library.service.BookService;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-import static com.casava.library.constant.Constants.BOOK_NOT_FOUND_MESSAGE;
+import static com.casava.library.constant.Constants.*;
 import static com.casava.library.service.serviceImpl.LoanServiceImpl.getBookResponseDTO;
+import static com.casava.library.util.Pagination.*;
 import static com.casava.library.util.Validator.validateRequest;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = SERVICE_TIMER, histogram = true)
 public class BookServiceImpl implements BookService {
+    private static final String FULL_TEXT_SEARCH = "text";
+    private static final String SIMILARITY_SEARCH = "similar";
 
     private final BookRepository bookRepository;
+    private final UniqueKeyIndex uniqueKeyIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final EntityManager entityManager;
 
     @Override
-    public List<BookResponseDTO> getAllBooks() {
-        List<Book> books = bookRepository.findAll();
-        return books.stream().map(this::toResponseDTO)
-                .collect(Collectors.toList());
+    @ReadFromReplica
+    @Transactional(readOnly = true)
+    public CursorPageResponseDTO<BookResponseDTO> getAllBooks(String author, Integer publishedYear, String cursor, int size) {
+        int pageSize = validatePageSize(size);
+        List<Book> books = bookRepository.findPageAfter(decodeIdCursor(cursor), author, publishedYear, lookAhead(pageSize));
+        return toPage(books, pageSize, this::toResponseDTO, book -> encodeCursor(book.getId()));
     }
 
     @Override
+    public CursorPageResponseDTO<BookResponseDTO> searchBooks(String query, String cursor, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException(SEARCH_QUERY_REQUIRED_MESSAGE);
+        }
+        if (query.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query must be at most " + MAX_SEARCH_QUERY_LENGTH + " characters");
+        }
+        int pageSize = validatePageSize(size);
+
+        String term = query.strip();
+        if (cursor == null || cursor.isBlank()) {
+            List<BookSearchHit> hits = bookRepository.searchFullText(term, HIGHEST_SCORE, FIRST_ID, lookAhead(pageSize));
+            if (!hits.isEmpty()) {
+                return toSearchPage(hits, pageSize, FULL_TEXT_SEARCH, 0);
+            }
+            // Nothing matched word for word, so the query probably has a typo: fall back to trigram similarity.
+            hits = bookRepository.searchSimilar(term, HIGHEST_SCORE, FIRST_ID, lookAhead(pageSize));
+            return toSearchPage(hits, pageSize, SIMILARITY_SEARCH, 0);
+        }
+
+        // Every page ranks all the matches, so the cursor also counts the results already served to cap the depth.
+        String[] keys = decodeCursor(cursor, 4);
+        double beforeScore;
+        UUID afterId;
+        int served;
+        try {
+            beforeScore = Double.parseDouble(keys[1]);
+            afterId = UUID.fromString(keys[2]);
+            served = Integer.parseInt(keys[3]);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+        }
+        if (served < 0 || served >= MAX_SEARCH_RESULTS) {
+            throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+        }
+        int remaining = Math.min(pageSize, MAX_SEARCH_RESULTS - served);
+        return switch (keys[0]) {
+            case FULL_TEXT_SEARCH -> toSearchPage(bookRepository.searchFullText(term, beforeScore, afterId,
+                    lookAhead(remaining)), remaining, FULL_TEXT_SEARCH, served);
+            case SIMILARITY_SEARCH -> toSearchPage(bookRepository.searchSimilar(term, beforeScore, afterId,
+                    lookAhead(remaining)), remaining, SIMILARITY_SEARCH, served);
+            default -> throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBooks(Consumer<BookResponseDTO> consumer) {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(book -> {
+                consumer.accept(toResponseDTO(book));
+                entityManager.detach(book);
+            });
+        }
+    }
+
+    @Override
+    public AutocompleteResponseDTO autocomplete(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException(AUTOCOMPLETE_PREFIX_REQUIRED_MESSAGE);
+        }
+        if (prefix.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Autocomplete prefix must be at most " + MAX_SEARCH_QUERY_LENGTH + " characters");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Suggestion limit must be greater than or equal to 1");
+        }
+        String term = prefix.stripLeading();
+        int suggestions = Math.min(limit, MAX_SUGGESTIONS);
+        return new AutocompleteResponseDTO(
+                autocompleteIndex.suggestTitles(term, suggestions).stream().map(this::toSuggestionDTO).toList(),
+                autocompleteIndex.suggestAuthors(term, suggestions).stream().map(this::toSuggestionDTO).toList());
+    }
+
+    @Override
+    @Cacheable(cacheNames = BOOK_CACHE, key = "#id")
+    @ReadFromReplica
+    @Transactional(readOnly = true)
     public BookResponseDTO getBookById(UUID id) {
         validateRequest(id);
 
@@ -42,29 +147,50 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @CacheEvict(cacheNames = BOOK_PAGE_JSON_CACHE, allEntries = true)
     public BookResponseDTO addBook(BookRequestDTO bookRequestDTO) {
         validateRequest(bookRequestDTO);
         Optional.ofNullable(bookRequestDTO.getIsbn())
-                .filter(isbn -> !bookRepository.existsByIsbn(isbn))
+                .filter(isbn -> !uniqueKeyIndex.mightContainIsbn(isbn) || !bookRepository.existsByIsbn(isbn))
                 .orElseThrow(() -> new ResourceAlreadyExistException("Book with this isbn: " + bookRequestDTO.getIsbn() +
                         " already exists"));
 
         Book book = toEntity(bookRequestDTO);
-        book = bookRepository.save(book);
+        try {
+            book = bookRepository.save(book);
+        } catch (DataIntegrityViolationException ex) {
+            if (!IntegrityViolations.isUniqueViolation(ex, BOOK_ISBN_CONSTRAINT)) {
+                throw ex;
+            }
+            throw new ResourceAlreadyExistException("Book with this isbn: " + bookRequestDTO.getIsbn() +
+                    " already exists");
+        }
+        uniqueKeyIndex.addIsbn(book.getIsbn());
+        autocompleteIndex.addBook(book);
         return toResponseDTO(book);
     }
 
     @Override
-    public BookResponseDTO updateBook(UUID id, BookRequestDTO bookRequestDTO) {
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {BOOK_CACHE, BOOK_JSON_CACHE}, key = "#id"),
+            @CacheEvict(cacheNames = BOOK_PAGE_JSON_CACHE, allEntries = true)})
+    public BookResponseDTO updateBook(UUID id, BookRequestDTO bookRequestDTO, Long expectedVersion) {
         validateRequest(id);
         validateRequest(bookRequestDTO);
 
-        Book existingBook = bookRepository.findById(id).orElseThrow(
-                () -> new ResourceNotFoundException(BOOK_NOT_FOUND_MESSAGE));
+        return OptimisticLocking.retry(() -> {
+            Book existingBook = bookRepository.findById(id).orElseThrow(
+                    () -> new ResourceNotFoundException(BOOK_NOT_FOUND_MESSAGE));
+            OptimisticLocking.checkVersion(existingBook.getVersion(), expectedVersion);
 
-        updateBookDetails(existingBook, bookRequestDTO);
-        bookRepository.save(existingBook);
-        return toResponseDTO(existingBook);
+            String previousTitle = existingBook.getTitle();
+            String previousAuthor = existingBook.getAuthor();
+            updateBookDetails(existingBook, bookRequestDTO);
+            bookRepository.save(existingBook);
+            uniqueKeyIndex.addIsbn(existingBook.getIsbn());
+            autocompleteIndex.updateBook(previousTitle, previousAuthor, existingBook);
+            return toResponseDTO(existingBook);
+        });
     }
 
     private void updateBookDetails(Book book, BookRequestDTO bookRequestDTO) {
@@ -76,13 +202,39 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {BOOK_CACHE, BOOK_JSON_CACHE}, key = "#id"),
+            @CacheEvict(cacheNames = BOOK_PAGE_JSON_CACHE, allEntries = true)})
     public void deleteBook(UUID id) {
         validateRequest(id);
 
-        if (!bookRepository.existsById(id)) {
-            throw new ResourceNotFoundException(BOOK_NOT_FOUND_MESSAGE);
+        Book book = bookRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException(BOOK_NOT_FOUND_MESSAGE));
+        bookRepository.delete(book);
+        autocompleteIndex.removeBook(book);
+    }
+
+    private CursorPageResponseDTO<BookResponseDTO> toSearchPage(List<BookSearchHit> hits, int pageSize, String mode,
+                                                                int served) {
+        int total = served + Math.min(hits.size(), pageSize);
+        if (total >= MAX_SEARCH_RESULTS) {
+            hits = hits.subList(0, Math.min(hits.size(), pageSize));
         }
-        bookRepository.deleteById(id);
+        return toPage(hits, pageSize, this::toResponseDTO, hit -> encodeCursor(mode, hit.getScore(), hit.getId(), total));
+    }
+
+    private BookResponseDTO toResponseDTO(BookSearchHit hit) {
+        BookResponseDTO dto = new BookResponseDTO();
+        dto.setId(hit.getId());
+        dto.setTitle(hit.getTitle());
+        dto.setAuthor(hit.getAuthor());
+        dto.setPublishedYear(hit.getPublishedYear());
+        dto.setIsbn(hit.getIsbn());
+        dto.setCopiesAvailable(hit.getCopiesAvailable());
+        return dto;
+    }
+
+    private SuggestionDTO toSuggestionDTO(PrefixIndex.Entry entry) {
+        return new SuggestionDTO(entry.text(), entry.id(), entry.weight());
     }
 
     private BookResponseDTO toResponseDTO(Book book) {
@@ -90,6 +242,10 @@ public class BookServiceImpl implements BookService {
     }
 
     private Book toEntity(BookRequestDTO dto) {
+        return getBookEntity(dto);
+    }
+
+    static Book getBookEntity(BookRequestDTO dto) {
         Book book = new Book();
         book.setTitle(dto.getTitle());
         book.setAuthor(dto.getAuthor());
@@ -1,41 +1,88 @@
 package com.casava.library.service.serviceImpl;
 
+import com.casava.library.dto.request.BatchLoanRequestDTO;
+import com.casava.library.dto.request.BatchReturnRequestDTO;
 import com.casava.library.dto.request.LoanRequestDTO;
+import com.casava.library.dto.response.BatchLoanItemDTO;
+import com.casava.library.dto.response.BatchLoanResponseDTO;
 import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
 import com.casava.library.dto.response.LoanResponseDTO;
+import com.casava.library.dto.response.OpenLoanCountDTO;
+import com.casava.library.dto.response.OverdueCountDTO;
 import com.casava.library.entity.Book;
 import com.casava.library.entity.Loan;
+import com.casava.library.datasource.ReadFromReplica;
+import com.casava.library.exception.ResourceConflictException;
 import com.casava.library.exception.ResourceNotFoundException;
 import com.casava.library.repository.BookRepository;
 import com.casava.library.repository.LoanRepository;
 import com.casava.library.repository.UserRepository;
+import com.casava.library.repository.projection.LoanedBook;
+import com.casava.library.repository.projection.OpenLoanCount;
+import com.casava.library.repository.projection.OverdueCount;
 import com.casava.library.service.LoanService;
+import com.casava.library.service.UserService;
+import com.casava.library.util.EncodedPage;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
-import java.util.Comparator;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.casava.library.constant.Constants.*;
+import static com.casava.library.util.Pagination.*;
 import static com.casava.library.util.Validator.validateRequest;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = SERVICE_TIMER, histogram = true)
 public class LoanServiceImpl implements LoanService {
     private final LoanRepository loanRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final UserService userService;
+    private final CacheManager cacheManager;
+    private final EntityManager entityManager;
 
     @Override
-    public List<LoanResponseDTO> getAllLoans() {
-        List<Loan> loans = loanRepository.findAll();
-        return loans.stream().map(this::toResponseDTO).collect(Collectors.toList());
+    @ReadFromReplica
+    @Transactional(readOnly = true)
+    public CursorPageResponseDTO<LoanResponseDTO> getAllLoans(UUID userId, UUID bookId, Boolean returned,
+                                                              String cursor, int size) {
+        int pageSize = validatePageSize(size);
+        List<Loan> loans = loanRepository.findPageAfter(decodeIdCursor(cursor), userId, bookId, returned,
+                lookAhead(pageSize));
+        return toPage(loans, pageSize, this::toResponseDTO, loan -> encodeCursor(loan.getId()));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void exportLoans(Consumer<LoanResponseDTO> consumer) {
+        try (Stream<Loan> loans = loanRepository.streamAll()) {
+            loans.forEach(loan -> {
+                consumer.accept(toResponseDTO(loan));
+                entityManager.detach(loan);
+            });
+        }
+    }
+
+    @Override
+    @ReadFromReplica
+    @Transactional(readOnly = true)
     public LoanResponseDTO getLoanById(UUID id) {
         validateRequest(id);
 
@@ -45,21 +92,27 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
+    @Transactional
     public LoanResponseDTO recordLoan(LoanRequestDTO loanRequestDTO) {
         validateRequest(loanRequestDTO);
-        if (!userRepository.existsById(loanRequestDTO.getUserId())) {
-            throw new ResourceNotFoundException(USER_NOT_FOUND_MESSAGE);
-        }
+        userService.getUserById(loanRequestDTO.getUserId());
 
-        if (!bookRepository.existsById(loanRequestDTO.getBookId())) {
-            throw new ResourceNotFoundException(BOOK_NOT_FOUND_MESSAGE);
-        }
         Loan loan = toEntity(loanRequestDTO);
-        loan = loanRepository.save(loan);
+        loan = loanRepository.saveAndFlush(loan);
+
+        // The conditional decrement runs last so the book row stays locked only until commit.
+        if (bookRepository.reserveCopy(loanRequestDTO.getBookId()) == 0) {
+            if (!bookRepository.existsById(loanRequestDTO.getBookId())) {
+                throw new ResourceNotFoundException(BOOK_NOT_FOUND_MESSAGE);
+            }
+            throw new ResourceConflictException(NO_COPIES_AVAILABLE_MESSAGE);
+        }
+        evictCachedBook(loanRequestDTO.getBookId());
         return toResponseDTO(loan);
     }
 
     @Override
+    @Transactional
     public LoanResponseDTO returnLoan(UUID id, LocalDate returnDate) {
         validateRequest(id);
         validateRequest(returnDate);
@@ -69,31 +122,288 @@ public class LoanServiceImpl implements LoanService {
         if(returnDate.isBefore(loan.getLoanDate())){
             throw new IllegalArgumentException("Return date cannot be before loan date");
         }
-        loan.setReturnDate(returnDate);
-                loan = loanRepository.save(loan);
-        return toResponseDTO(loan);
+        if (loanRepository.markReturned(id, returnDate) == 0) {
+            throw new ResourceConflictException(LOAN_ALREADY_RETURNED_MESSAGE);
+        }
+        bookRepository.releaseCopy(loan.getBookId());
+        evictCachedBook(loan.getBookId());
+
+        LoanResponseDTO dto = toResponseDTO(loan);
+        dto.setReturnDate(returnDate);
+        return dto;
+    }
+
+    @Override
+    @Transactional
+    public BatchLoanResponseDTO recordLoans(BatchLoanRequestDTO batchLoanRequestDTO) {
+        validateRequest(batchLoanRequestDTO);
+        List<LoanRequestDTO> requests = batchLoanRequestDTO.getLoans();
+        boolean atomic = batchLoanRequestDTO.isAtomic();
+        BatchLoanItemDTO[] items = new BatchLoanItemDTO[requests.size()];
+
+        Set<UUID> knownUsers = userRepository.findExistingIds(
+                requests.stream().map(LoanRequestDTO::getUserId).collect(Collectors.toSet()));
+        Set<UUID> knownBooks = bookRepository.findExistingIds(
+                requests.stream().map(LoanRequestDTO::getBookId).collect(Collectors.toSet()));
+
+        // Sorted so concurrent batches always lock book rows in the same order.
+        Map<UUID, List<Integer>> indexesByBook = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            LoanRequestDTO request = requests.get(i);
+            if (!knownUsers.contains(request.getUserId())) {
+                reject(items, i, atomic, USER_NOT_FOUND_MESSAGE, ResourceNotFoundException::new);
+            } else if (!knownBooks.contains(request.getBookId())) {
+                reject(items, i, atomic, BOOK_NOT_FOUND_MESSAGE, ResourceNotFoundException::new);
+            } else {
+                indexesByBook.computeIfAbsent(request.getBookId(), bookId -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<Integer> reserved = new ArrayList<>();
+        for (Map.Entry<UUID, List<Integer>> entry : indexesByBook.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            int granted = reserveCopies(entry.getKey(), indexes.size(), atomic);
+            reserved.addAll(indexes.subList(0, granted));
+            for (int index : indexes.subList(granted, indexes.size())) {
+                reject(items, index, atomic, NO_COPIES_AVAILABLE_MESSAGE, ResourceConflictException::new);
+            }
+            if (granted > 0) {
+                evictCachedBook(entry.getKey());
+            }
+        }
+
+        List<Loan> loans = loanRepository.saveAll(reserved.stream().map(index -> toEntity(requests.get(index))).toList());
+        for (int i = 0; i < loans.size(); i++) {
+            items[reserved.get(i)] = new BatchLoanItemDTO(reserved.get(i), true, toResponseDTO(loans.get(i)), null);
+        }
+        return toBatchResponse(items);
+    }
+
+    @Override
+    @Transactional
+    public BatchLoanResponseDTO returnLoans(BatchReturnRequestDTO batchReturnRequestDTO) {
+        validateRequest(batchReturnRequestDTO);
+        List<UUID> loanIds = batchReturnRequestDTO.getLoanIds();
+        LocalDate returnDate = batchReturnRequestDTO.getReturnDate();
+        boolean atomic = batchReturnRequestDTO.isAtomic();
+        BatchLoanItemDTO[] items = new BatchLoanItemDTO[loanIds.size()];
+
+        // Row locks keep a concurrent single return from slipping in between the checks and the update.
+        Map<UUID, Loan> loans = loanRepository.findAllForUpdate(new HashSet<>(loanIds)).stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+
+        Set<UUID> returning = new HashSet<>();
+        Map<UUID, Integer> releasesByBook = new TreeMap<>();
+        for (int i = 0; i < loanIds.size(); i++) {
+            Loan loan = loans.get(loanIds.get(i));
+            if (loan == null) {
+                reject(items, i, atomic, LOAN_NOT_FOUND_MESSAGE, ResourceNotFoundException::new);
+            } else if (loan.getReturnDate() != null || returning.contains(loan.getId())) {
+                reject(items, i, atomic, LOAN_ALREADY_RETURNED_MESSAGE, ResourceConflictException::new);
+            } else if (returnDate.isBefore(loan.getLoanDate())) {
+                reject(items, i, atomic, "Return date cannot be before loan date", IllegalArgumentException::new);
+            } else {
+                returning.add(loan.getId());
+                releasesByBook.merge(loan.getBookId(), 1, Integer::sum);
+                LoanResponseDTO dto = toResponseDTO(loan);
+                dto.setReturnDate(returnDate);
+                items[i] = new BatchLoanItemDTO(i, true, dto, null);
+            }
+        }
+
+        if (!returning.isEmpty()) {
+            loanRepository.markAllReturned(returning, returnDate);
+            releasesByBook.forEach((bookId, count) -> {
+                bookRepository.releaseCopies(bookId, count);
+                evictCachedBook(bookId);
+            });
+        }
+        return toBatchResponse(items);
     }
 
     @Override
-    public List<BookResponseDTO> getBooksLoanedByUser(UUID userId) {
+    @ReadFromReplica
+    @Transactional(readOnly = true)
+    public CursorPageResponseDTO<BookResponseDTO> getBooksLoanedByUser(UUID userId, String cursor, int size) {
         validateRequest(userId);
+        int pageSize = validatePageSize(size);
 
-        List<Loan> loans = loanRepository.findByUserId(userId);
-        return loans.stream()
-                .sorted(Comparator.comparing(Loan::getLoanDate).reversed())
-                .map(loan -> bookRepository.findById(loan.getBookId())
-                        .map(this::toBookResponseDTO)
-                        .orElseThrow(() -> new ResourceNotFoundException(BOOK_NOT_FOUND_MESSAGE)))
-                .collect(Collectors.toList());
+        LocalDate beforeLoanDate = LATEST_LOAN_DATE;
+        UUID beforeLoanId = LAST_ID;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] keys = decodeCursor(cursor, 2);
+            try {
+                beforeLoanDate = LocalDate.parse(keys[0]);
+                beforeLoanId = UUID.fromString(keys[1]);
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+            }
+        }
+        List<LoanedBook> loanedBooks = loanRepository.findLoanedBooksBefore(userId, beforeLoanDate, beforeLoanId,
+                lookAhead(pageSize));
+        return toPage(loanedBooks, pageSize, LoanServiceImpl::toBookResponseDTO,
+                loanedBook -> encodeCursor(loanedBook.loanDate(), loanedBook.loanId()));
+    }
+
+    @Override
+    public CursorPageResponseDTO<LoanResponseDTO> getOpenLoans(UUID userId, UUID bookId, boolean overdue,
+                                                               String cursor, int size) {
+        validateOpenLoanFilter(userId, bookId);
+        int pageSize = validatePageSize(size);
+
+        LocalDate dueBefore = overdue ? overdueCutoff() : LATEST_LOAN_DATE;
+        LocalDate afterLoanDate = EARLIEST_LOAN_DATE;
+        UUID afterLoanId = FIRST_ID;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] keys = decodeCursor(cursor, 2);
+            try {
+                afterLoanDate = LocalDate.parse(keys[0]);
+                afterLoanId = UUID.fromString(keys[1]);
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+            }
+        }
+        List<Loan> loans;
+        if (userId != null) {
+            loans = loanRepository.findOpenByUserAfter(userId, dueBefore, afterLoanDate, afterLoanId, lookAhead(pageSize));
+        } else if (bookId != null) {
+            loans = loanRepository.findOpenByBookAfter(bookId, dueBefore, afterLoanDate, afterLoanId, lookAhead(pageSize));
+        } else {
+            loans = loanRepository.findOpenAfter(dueBefore, afterLoanDate, afterLoanId, lookAhead(pageSize));
+        }
+        return toPage(loans, pageSize, this::toResponseDTO, loan -> encodeCursor(loan.getLoanDate(), loan.getId()));
+    }
+
+    @Override
+    public OpenLoanCountDTO countOpenLoans(UUID userId, UUID bookId) {
+        validateOpenLoanFilter(userId, bookId);
+
+        LocalDate dueBefore = overdueCutoff();
+        OpenLoanCount count;
+        if (userId != null) {
+            count = loanRepository.countOpenByUser(userId, dueBefore);
+        } else if (bookId != null) {
+            count = loanRepository.countOpenByBook(bookId, dueBefore);
+        } else {
+            count = loanRepository.countOpen(dueBefore);
+        }
+        return new OpenLoanCountDTO(count.getActiveLoans(), count.getOverdueLoans());
+    }
+
+    @Override
+    public CursorPageResponseDTO<OverdueCountDTO> getOverdueCountsByUser(String cursor, int size) {
+        return getOverdueCounts(cursor, size, loanRepository::countOverdueByUser);
+    }
+
+    @Override
+    public CursorPageResponseDTO<OverdueCountDTO> getOverdueCountsByBook(String cursor, int size) {
+        return getOverdueCounts(cursor, size, loanRepository::countOverdueByBook);
+    }
+
+    private CursorPageResponseDTO<OverdueCountDTO> getOverdueCounts(String cursor, int size, OverdueCountQuery query) {
+        int pageSize = validatePageSize(size);
+
+        long beforeCount = HIGHEST_COUNT;
+        UUID afterId = FIRST_ID;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] keys = decodeCursor(cursor, 2);
+            try {
+                beforeCount = Long.parseLong(keys[0]);
+                afterId = UUID.fromString(keys[1]);
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+            }
+        }
+        List<OverdueCount> counts = query.find(overdueCutoff(), beforeCount, afterId, lookAhead(pageSize));
+        return toPage(counts, pageSize, count -> new OverdueCountDTO(count.getId(), count.getOverdueLoans()),
+                count -> encodeCursor(count.getOverdueLoans(), count.getId()));
+    }
+
+    private interface OverdueCountQuery {
+        List<OverdueCount> find(LocalDate dueBefore, long beforeCount, UUID afterId, Pageable pageable);
+    }
+
+    static void validateOpenLoanFilter(UUID userId, UUID bookId) {
+        if (userId != null && bookId != null) {
+            throw new IllegalArgumentException(OPEN_LOAN_FILTER_MESSAGE);
+        }
+    }
+
+    // A loan becomes overdue the day after its loan period ends.
+    static LocalDate overdueCutoff() {
+        return LocalDate.now().minusDays(LOAN_PERIOD_DAYS);
+    }
+
+    // Takes every requested copy in one statement; per-item batches fall back to one copy at a time
+    // so the earliest items still get whatever is left.
+    private int reserveCopies(UUID bookId, int requested, boolean atomic) {
+        if (bookRepository.reserveCopies(bookId, requested) == 1) {
+            return requested;
+        }
+        int granted = 0;
+        while (!atomic && granted < requested && bookRepository.reserveCopy(bookId) == 1) {
+            granted++;
+        }
+        return granted;
+    }
+
+    static void reject(BatchLoanItemDTO[] items, int index, boolean atomic, String message,
+                       Function<String, RuntimeException> failure) {
+        if (atomic) {
+            throw failure.apply("Item " + index + ": " + message);
+        }
+        items[index] = new BatchLoanItemDTO(index, false, null, message);
+    }
+
+    static BatchLoanResponseDTO toBatchResponse(BatchLoanItemDTO[] items) {
+        int succeeded = (int) Arrays.stream(items).filter(BatchLoanItemDTO::isSuccess).count();
+        return new BatchLoanResponseDTO(succeeded, items.length - succeeded, Arrays.asList(items));
+    }
+
+    // Deferred until commit so a concurrent read cannot re-cache the pre-commit copy count. Only the cached pages
+    // listing the book are dropped, found by scanning the page cache, which holds a few thousand entries at most.
+    private void evictCachedBook(UUID bookId) {
+        for (String cacheName : List.of(BOOK_CACHE, BOOK_JSON_CACHE)) {
+            Cache bookCache = cacheManager.getCache(cacheName);
+            if (bookCache != null) {
+                new TransactionAwareCacheDecorator(bookCache).evict(bookId);
+            }
+        }
+        Cache pageCache = cacheManager.getCache(BOOK_PAGE_JSON_CACHE);
+        if (pageCache != null && pageCache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> pages) {
+            afterCommit(() -> pages.asMap().forEach((key, page) -> {
+                if (page instanceof EncodedPage encoded && encoded.bookIds().contains(bookId)) {
+                    pageCache.evict(key);
+                }
+            }));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     private LoanResponseDTO toResponseDTO(Loan loan) {
+        return getLoanResponseDTO(loan);
+    }
+
+    static LoanResponseDTO getLoanResponseDTO(Loan loan) {
         LoanResponseDTO dto = new LoanResponseDTO();
         dto.setId(loan.getId());
         dto.setBookId(loan.getBookId());
         dto.setUserId(loan.getUserId());
         dto.setLoanDate(loan.getLoanDate());
         dto.setReturnDate(loan.getReturnDate());
+        dto.setFine(loan.getFine());
         return dto;
     }
 
@@ -105,8 +415,15 @@ public class LoanServiceImpl implements LoanService {
         return loan;
     }
 
-    private BookResponseDTO toBookResponseDTO(Book book) {
-        return getBookResponseDTO(book);
+    static BookResponseDTO toBookResponseDTO(LoanedBook loanedBook) {
+        BookResponseDTO dto = new BookResponseDTO();
+        dto.setId(loanedBook.bookId());
+        dto.setTitle(loanedBook.title());
+        dto.setAuthor(loanedBook.author());
+        dto.setPublishedYear(loanedBook.publishedYear());
+        dto.setIsbn(loanedBook.isbn());
+        dto.setCopiesAvailable(loanedBook.copiesAvailable());
+        return dto;
     }
 
     static BookResponseDTO getBookResponseDTO(Book book) {
@@ -117,6 +434,7 @@ public class LoanServiceImpl implements LoanService {
         dto.setPublishedYear(book.getPublishedYear());
         dto.setIsbn(book.getIsbn());
         dto.setCopiesAvailable(book.getCopiesAvailable());
+        dto.setVersion(book.getVersion());
         return dto;
     }
 }
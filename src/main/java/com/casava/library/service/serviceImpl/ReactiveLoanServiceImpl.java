@@ -0,0 +1,454 @@
+package com.casava.library.service.serviceImpl;
+
+import com.casava.library.dto.request.BatchLoanRequestDTO;
+import com.casava.library.dto.request.BatchReturnRequestDTO;
+import com.casava.library.dto.request.LoanRequestDTO;
+import com.casava.library.dto.response.BatchLoanItemDTO;
+import com.casava.library.dto.response.BatchLoanResponseDTO;
+import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
+import com.casava.library.dto.response.LoanResponseDTO;
+import com.casava.library.dto.response.OpenLoanCountDTO;
+import com.casava.library.dto.response.OverdueCountDTO;
+import com.casava.library.entity.Loan;
+import com.casava.library.exception.ResourceConflictException;
+import com.casava.library.exception.ResourceNotFoundException;
+import com.casava.library.repository.projection.LoanedBook;
+import com.casava.library.service.ReactiveLoanService;
+import com.casava.library.util.UuidV7;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.casava.library.constant.Constants.*;
+import static com.casava.library.service.serviceImpl.LoanServiceImpl.*;
+import static com.casava.library.util.Pagination.*;
+import static com.casava.library.util.Validator.validateRequest;
+
+// LoanServiceImpl on R2DBC: the same statements and locking order, whose reasons are given there, issued without
+// holding a thread while PostgreSQL works. Book caches are not evicted because this profile serves no book reads;
+// other instances own their caches.
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoanServiceImpl implements ReactiveLoanService {
+    private static final String SELECT_LOANS = "select id, book_id, user_id, loan_date, return_date, fine from loans";
+    private static final String COUNT_OPEN_LOANS = "select count(*) as active_loans, " +
+            "coalesce(sum(case when loan_date < :dueBefore then 1 else 0 end), 0) as overdue_loans " +
+            "from loans where return_date is null";
+    private static final String RESERVE_COPIES = "update books set copies_available = copies_available - :count, " +
+            "loan_count = loan_count + :count, version = version + 1 where id = :id and copies_available >= :count";
+    private static final String RELEASE_COPIES = "update books set copies_available = copies_available + :count, " +
+            "version = version + 1 where id = :id";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    @Override
+    public Mono<CursorPageResponseDTO<LoanResponseDTO>> getAllLoans(UUID userId, UUID bookId, Boolean returned,
+                                                                    String cursor, int size) {
+        return Mono.defer(() -> {
+            int pageSize = validatePageSize(size);
+            Map<String, Object> params = new HashMap<>();
+            params.put("after", decodeIdCursor(cursor));
+            StringBuilder sql = new StringBuilder(SELECT_LOANS).append(" where id > :after");
+            appendOwnerFilter(sql, params, userId, bookId);
+            if (returned != null) {
+                sql.append(returned ? " and return_date is not null" : " and return_date is null");
+            }
+            sql.append(" order by id");
+            return findLoans(sql.toString(), params, pageSize).map(loans -> toPage(loans, pageSize,
+                    LoanServiceImpl::getLoanResponseDTO, loan -> encodeCursor(loan.getId())));
+        });
+    }
+
+    @Override
+    public Flux<LoanResponseDTO> exportLoans() {
+        return databaseClient.sql(SELECT_LOANS + " order by id")
+                .filter(statement -> statement.fetchSize(Integer.parseInt(EXPORT_FETCH_SIZE)))
+                .map(ReactiveLoanServiceImpl::toLoan)
+                .all()
+                .map(LoanServiceImpl::getLoanResponseDTO);
+    }
+
+    @Override
+    public Mono<LoanResponseDTO> getLoanById(UUID id) {
+        return Mono.defer(() -> {
+            validateRequest(id);
+            return findLoan(id).map(LoanServiceImpl::getLoanResponseDTO);
+        });
+    }
+
+    @Override
+    public Mono<LoanResponseDTO> recordLoan(LoanRequestDTO loanRequestDTO) {
+        return Mono.defer(() -> {
+            validateRequest(loanRequestDTO);
+            validateRequest(loanRequestDTO.getUserId());
+            Loan loan = toEntity(loanRequestDTO);
+
+            return findExistingIds("users", List.of(loan.getUserId()))
+                    .filter(users -> !users.isEmpty())
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(USER_NOT_FOUND_MESSAGE)))
+                    .then(insertLoan(loan))
+                    .then(reserveCopies(loan.getBookId(), 1))
+                    .flatMap(reserved -> reserved ? Mono.just(loan) : rejectReservation(loan.getBookId()))
+                    .map(LoanServiceImpl::getLoanResponseDTO);
+        }).as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<LoanResponseDTO> returnLoan(UUID id, LocalDate returnDate) {
+        return Mono.defer(() -> {
+            validateRequest(id);
+            validateRequest(returnDate);
+
+            return findLoan(id).flatMap(loan -> {
+                if (returnDate.isBefore(loan.getLoanDate())) {
+                    return Mono.error(new IllegalArgumentException("Return date cannot be before loan date"));
+                }
+                return markReturned(List.of(id), returnDate)
+                        .flatMap(updated -> updated == 0
+                                ? Mono.error(new ResourceConflictException(LOAN_ALREADY_RETURNED_MESSAGE))
+                                : releaseCopies(loan.getBookId(), 1))
+                        .then(Mono.fromSupplier(() -> {
+                            LoanResponseDTO dto = getLoanResponseDTO(loan);
+                            dto.setReturnDate(returnDate);
+                            return dto;
+                        }));
+            });
+        }).as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<BatchLoanResponseDTO> recordLoans(BatchLoanRequestDTO batchLoanRequestDTO) {
+        return Mono.defer(() -> {
+            validateRequest(batchLoanRequestDTO);
+            List<LoanRequestDTO> requests = batchLoanRequestDTO.getLoans();
+            boolean atomic = batchLoanRequestDTO.isAtomic();
+            BatchLoanItemDTO[] items = new BatchLoanItemDTO[requests.size()];
+
+            Mono<Set<UUID>> knownUsers = findExistingIds("users",
+                    requests.stream().map(LoanRequestDTO::getUserId).collect(Collectors.toSet()));
+            Mono<Set<UUID>> knownBooks = findExistingIds("books",
+                    requests.stream().map(LoanRequestDTO::getBookId).collect(Collectors.toSet()));
+
+            return knownUsers.flatMap(users -> knownBooks.flatMap(books -> {
+                Map<UUID, List<Integer>> indexesByBook = new TreeMap<>();
+                for (int i = 0; i < requests.size(); i++) {
+                    LoanRequestDTO request = requests.get(i);
+                    if (!users.contains(request.getUserId())) {
+                        reject(items, i, atomic, USER_NOT_FOUND_MESSAGE, ResourceNotFoundException::new);
+                    } else if (!books.contains(request.getBookId())) {
+                        reject(items, i, atomic, BOOK_NOT_FOUND_MESSAGE, ResourceNotFoundException::new);
+                    } else {
+                        indexesByBook.computeIfAbsent(request.getBookId(), bookId -> new ArrayList<>()).add(i);
+                    }
+                }
+
+                List<Integer> reserved = new ArrayList<>();
+                return Flux.fromIterable(indexesByBook.entrySet())
+                        .concatMap(entry -> reserveCopies(entry.getKey(), entry.getValue().size(), atomic)
+                                .doOnNext(granted -> {
+                                    List<Integer> indexes = entry.getValue();
+                                    reserved.addAll(indexes.subList(0, granted));
+                                    for (int index : indexes.subList(granted, indexes.size())) {
+                                        reject(items, index, atomic, NO_COPIES_AVAILABLE_MESSAGE,
+                                                ResourceConflictException::new);
+                                    }
+                                }))
+                        .thenMany(Flux.defer(() -> Flux.fromIterable(reserved)))
+                        .concatMap(index -> {
+                            Loan loan = toEntity(requests.get(index));
+                            return insertLoan(loan).then(Mono.fromRunnable(() ->
+                                    items[index] = new BatchLoanItemDTO(index, true, getLoanResponseDTO(loan), null)));
+                        })
+                        .then(Mono.fromSupplier(() -> toBatchResponse(items)));
+            }));
+        }).as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<BatchLoanResponseDTO> returnLoans(BatchReturnRequestDTO batchReturnRequestDTO) {
+        return Mono.defer(() -> {
+            validateRequest(batchReturnRequestDTO);
+            List<UUID> loanIds = batchReturnRequestDTO.getLoanIds();
+            LocalDate returnDate = batchReturnRequestDTO.getReturnDate();
+            boolean atomic = batchReturnRequestDTO.isAtomic();
+            BatchLoanItemDTO[] items = new BatchLoanItemDTO[loanIds.size()];
+
+            return databaseClient.sql(SELECT_LOANS + " where id = any(:ids) order by id for update")
+                    .bind("ids", loanIds.toArray(UUID[]::new))
+                    .map(ReactiveLoanServiceImpl::toLoan)
+                    .all()
+                    .collectMap(Loan::getId)
+                    .flatMap(loans -> {
+                        Set<UUID> returning = new HashSet<>();
+                        Map<UUID, Integer> releasesByBook = new TreeMap<>();
+                        for (int i = 0; i < loanIds.size(); i++) {
+                            Loan loan = loans.get(loanIds.get(i));
+                            if (loan == null) {
+                                reject(items, i, atomic, LOAN_NOT_FOUND_MESSAGE, ResourceNotFoundException::new);
+                            } else if (loan.getReturnDate() != null || returning.contains(loan.getId())) {
+                                reject(items, i, atomic, LOAN_ALREADY_RETURNED_MESSAGE, ResourceConflictException::new);
+                            } else if (returnDate.isBefore(loan.getLoanDate())) {
+                                reject(items, i, atomic, "Return date cannot be before loan date",
+                                        IllegalArgumentException::new);
+                            } else {
+                                returning.add(loan.getId());
+                                releasesByBook.merge(loan.getBookId(), 1, Integer::sum);
+                                LoanResponseDTO dto = getLoanResponseDTO(loan);
+                                dto.setReturnDate(returnDate);
+                                items[i] = new BatchLoanItemDTO(i, true, dto, null);
+                            }
+                        }
+
+                        if (returning.isEmpty()) {
+                            return Mono.just(toBatchResponse(items));
+                        }
+                        return markReturned(returning, returnDate)
+                                .thenMany(Flux.fromIterable(releasesByBook.entrySet()))
+                                .concatMap(entry -> releaseCopies(entry.getKey(), entry.getValue()))
+                                .then(Mono.fromSupplier(() -> toBatchResponse(items)));
+                    });
+        }).as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<CursorPageResponseDTO<BookResponseDTO>> getBooksLoanedByUser(UUID userId, String cursor, int size) {
+        return Mono.defer(() -> {
+            validateRequest(userId);
+            int pageSize = validatePageSize(size);
+            Map.Entry<LocalDate, UUID> before = parseCursor(cursor, Map.entry(LATEST_LOAN_DATE, LAST_ID),
+                    keys -> Map.entry(LocalDate.parse(keys[0]), UUID.fromString(keys[1])));
+
+            return databaseClient.sql("""
+                            select l.id as loan_id, l.loan_date, b.id as book_id, b.title, b.author,
+                                   b.published_year, b.isbn, b.copies_available
+                            from loans l join books b on b.id = l.book_id
+                            where l.user_id = :userId and (l.loan_date, l.id) < (:beforeLoanDate, :beforeLoanId)
+                            order by l.loan_date desc, l.id desc
+                            limit :limit
+                            """)
+                    .bind("userId", userId)
+                    .bind("beforeLoanDate", before.getKey())
+                    .bind("beforeLoanId", before.getValue())
+                    .bind("limit", lookAhead(pageSize).getPageSize())
+                    .map(row -> new LoanedBook(row.get("loan_id", UUID.class), row.get("loan_date", LocalDate.class),
+                            row.get("book_id", UUID.class), row.get("title", String.class),
+                            row.get("author", String.class), row.get("published_year", Integer.class),
+                            row.get("isbn", String.class), row.get("copies_available", Integer.class)))
+                    .all()
+                    .collectList()
+                    .map(loanedBooks -> toPage(loanedBooks, pageSize, LoanServiceImpl::toBookResponseDTO,
+                            loanedBook -> encodeCursor(loanedBook.loanDate(), loanedBook.loanId())));
+        });
+    }
+
+    @Override
+    public Mono<CursorPageResponseDTO<LoanResponseDTO>> getOpenLoans(UUID userId, UUID bookId, boolean overdue,
+                                                                     String cursor, int size) {
+        return Mono.defer(() -> {
+            validateOpenLoanFilter(userId, bookId);
+            int pageSize = validatePageSize(size);
+            Map.Entry<LocalDate, UUID> after = parseCursor(cursor, Map.entry(EARLIEST_LOAN_DATE, FIRST_ID),
+                    keys -> Map.entry(LocalDate.parse(keys[0]), UUID.fromString(keys[1])));
+
+            // Shaped like the JPA queries so that the partial open-loan indexes serve them the same way.
+            Map<String, Object> params = new HashMap<>();
+            params.put("dueBefore", overdue ? overdueCutoff() : LATEST_LOAN_DATE);
+            params.put("afterLoanDate", after.getKey());
+            params.put("afterId", after.getValue());
+            StringBuilder sql = new StringBuilder(SELECT_LOANS)
+                    .append(" where return_date is null and loan_date < :dueBefore");
+            appendOwnerFilter(sql, params, userId, bookId);
+            sql.append(" and (loan_date, id) > (:afterLoanDate, :afterId) order by loan_date, id");
+            return findLoans(sql.toString(), params, pageSize).map(loans -> toPage(loans, pageSize,
+                    LoanServiceImpl::getLoanResponseDTO, loan -> encodeCursor(loan.getLoanDate(), loan.getId())));
+        });
+    }
+
+    @Override
+    public Mono<OpenLoanCountDTO> countOpenLoans(UUID userId, UUID bookId) {
+        return Mono.defer(() -> {
+            validateOpenLoanFilter(userId, bookId);
+
+            Map<String, Object> params = new HashMap<>();
+            params.put("dueBefore", overdueCutoff());
+            StringBuilder sql = new StringBuilder(COUNT_OPEN_LOANS);
+            appendOwnerFilter(sql, params, userId, bookId);
+            return databaseClient.sql(sql.toString())
+                    .bindValues(params)
+                    .map(row -> new OpenLoanCountDTO(row.get("active_loans", Long.class),
+                            row.get("overdue_loans", Long.class)))
+                    .one();
+        });
+    }
+
+    @Override
+    public Mono<CursorPageResponseDTO<OverdueCountDTO>> getOverdueCountsByUser(String cursor, int size) {
+        return getOverdueCounts("user_id", cursor, size);
+    }
+
+    @Override
+    public Mono<CursorPageResponseDTO<OverdueCountDTO>> getOverdueCountsByBook(String cursor, int size) {
+        return getOverdueCounts("book_id", cursor, size);
+    }
+
+    private Mono<CursorPageResponseDTO<OverdueCountDTO>> getOverdueCounts(String column, String cursor, int size) {
+        return Mono.defer(() -> {
+            int pageSize = validatePageSize(size);
+            Map.Entry<Long, UUID> before = parseCursor(cursor, Map.entry(HIGHEST_COUNT, FIRST_ID),
+                    keys -> Map.entry(Long.parseLong(keys[0]), UUID.fromString(keys[1])));
+
+            return databaseClient.sql("select " + column + " as id, count(*) as overdue_loans from loans " +
+                            "where return_date is null and loan_date < :dueBefore group by " + column + " " +
+                            "having count(*) < :beforeCount or (count(*) = :beforeCount and " + column + " > :afterId) " +
+                            "order by count(*) desc, " + column + " limit :limit")
+                    .bind("dueBefore", overdueCutoff())
+                    .bind("beforeCount", before.getKey())
+                    .bind("afterId", before.getValue())
+                    .bind("limit", lookAhead(pageSize).getPageSize())
+                    .map(row -> new OverdueCountDTO(row.get("id", UUID.class), row.get("overdue_loans", Long.class)))
+                    .all()
+                    .collectList()
+                    .map(counts -> toPage(counts, pageSize, Function.identity(),
+                            count -> encodeCursor(count.getOverdueLoans(), count.getId())));
+        });
+    }
+
+    private Mono<Loan> findLoan(UUID id) {
+        return databaseClient.sql(SELECT_LOANS + " where id = :id")
+                .bind("id", id)
+                .map(ReactiveLoanServiceImpl::toLoan)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(LOAN_NOT_FOUND_MESSAGE)));
+    }
+
+    private Mono<List<Loan>> findLoans(String sql, Map<String, Object> params, int pageSize) {
+        return databaseClient.sql(sql + " limit :limit")
+                .bindValues(params)
+                .bind("limit", lookAhead(pageSize).getPageSize())
+                .map(ReactiveLoanServiceImpl::toLoan)
+                .all()
+                .collectList();
+    }
+
+    private Mono<Set<UUID>> findExistingIds(String table, Collection<UUID> ids) {
+        return databaseClient.sql("select id from " + table + " where id = any(:ids)")
+                .bind("ids", ids.toArray(UUID[]::new))
+                .map(row -> row.get("id", UUID.class))
+                .all()
+                .collect(Collectors.toSet());
+    }
+
+    private Mono<Void> insertLoan(Loan loan) {
+        return databaseClient.sql("insert into loans (id, book_id, user_id, loan_date, version) " +
+                        "values (:id, :bookId, :userId, :loanDate, 0)")
+                .bind("id", loan.getId())
+                .bind("bookId", loan.getBookId())
+                .bind("userId", loan.getUserId())
+                .bind("loanDate", loan.getLoanDate())
+                .then();
+    }
+
+    private Mono<Long> markReturned(Collection<UUID> ids, LocalDate returnDate) {
+        return databaseClient.sql("update loans set return_date = :returnDate, version = version + 1 " +
+                        "where id = any(:ids) and return_date is null")
+                .bind("returnDate", returnDate)
+                .bind("ids", ids.toArray(UUID[]::new))
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private Mono<Boolean> reserveCopies(UUID bookId, int count) {
+        return databaseClient.sql(RESERVE_COPIES)
+                .bind("id", bookId)
+                .bind("count", count)
+                .fetch()
+                .rowsUpdated()
+                .map(updated -> updated == 1);
+    }
+
+    private Mono<Integer> reserveCopies(UUID bookId, int requested, boolean atomic) {
+        return reserveCopies(bookId, requested).flatMap(reserved -> reserved
+                ? Mono.just(requested)
+                : atomic ? Mono.just(0) : reserveOneByOne(bookId, requested, 0));
+    }
+
+    private Mono<Integer> reserveOneByOne(UUID bookId, int requested, int granted) {
+        if (granted == requested) {
+            return Mono.just(granted);
+        }
+        return reserveCopies(bookId, 1).flatMap(reserved -> reserved
+                ? reserveOneByOne(bookId, requested, granted + 1)
+                : Mono.just(granted));
+    }
+
+    private Mono<Void> releaseCopies(UUID bookId, int count) {
+        return databaseClient.sql(RELEASE_COPIES)
+                .bind("id", bookId)
+                .bind("count", count)
+                .then();
+    }
+
+    private <T> Mono<T> rejectReservation(UUID bookId) {
+        return findExistingIds("books", List.of(bookId)).flatMap(books -> Mono.error(books.isEmpty()
+                ? new ResourceNotFoundException(BOOK_NOT_FOUND_MESSAGE)
+                : new ResourceConflictException(NO_COPIES_AVAILABLE_MESSAGE)));
+    }
+
+    private static void appendOwnerFilter(StringBuilder sql, Map<String, Object> params, UUID userId, UUID bookId) {
+        if (userId != null) {
+            sql.append(" and user_id = :userId");
+            params.put("userId", userId);
+        }
+        if (bookId != null) {
+            sql.append(" and book_id = :bookId");
+            params.put("bookId", bookId);
+        }
+    }
+
+    private static <K> Map.Entry<K, UUID> parseCursor(String cursor, Map.Entry<K, UUID> firstPage,
+                                                      Function<String[], Map.Entry<K, UUID>> parser) {
+        if (cursor == null || cursor.isBlank()) {
+            return firstPage;
+        }
+        String[] keys = decodeCursor(cursor, 2);
+        try {
+            return parser.apply(keys);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+        }
+    }
+
+    private static Loan toEntity(LoanRequestDTO dto) {
+        Loan loan = new Loan();
+        loan.setId(UuidV7.next());
+        loan.setBookId(dto.getBookId());
+        loan.setUserId(dto.getUserId());
+        loan.setLoanDate(dto.getLoanDate());
+        return loan;
+    }
+
+    private static Loan toLoan(Readable row) {
+        Loan loan = new Loan();
+        loan.setId(row.get("id", UUID.class));
+        loan.setBookId(row.get("book_id", UUID.class));
+        loan.setUserId(row.get("user_id", UUID.class));
+        loan.setLoanDate(row.get("loan_date", LocalDate.class));
+        loan.setReturnDate(row.get("return_date", LocalDate.class));
+        loan.setFine(row.get("fine", BigDecimal.class));
+        return loan;
+    }
+}
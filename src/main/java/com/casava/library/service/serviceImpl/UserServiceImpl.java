@@ -1,37 +1,72 @@
 package com.casava.library.service.serviceImpl;
 
 import com.casava.library.dto.request.UserRequestDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
 import com.casava.library.dto.response.UserResponseDTO;
 import com.casava.library.entity.User;
+import com.casava.library.datasource.ReadFromReplica;
 import com.casava.library.exception.ResourceAlreadyExistException;
 import com.casava.library.exception.ResourceNotFoundException;
+import com.casava.library.index.UniqueKeyIndex;
 import com.casava.library.repository.UserRepository;
 import com.casava.library.service.UserService;
+import com.casava.library.util.IntegrityViolations;
+import com.casava.library.util.OptimisticLocking;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import static com.casava.library.constant.Constants.USER_CACHE;
+import static com.casava.library.constant.Constants.USER_EMAIL_CONSTRAINT;
 import static com.casava.library.constant.Constants.USER_NOT_FOUND_MESSAGE;
+import static com.casava.library.constant.Constants.SERVICE_TIMER;
+import static com.casava.library.util.Pagination.*;
 import static com.casava.library.util.Validator.validateRequest;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = SERVICE_TIMER, histogram = true)
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final UniqueKeyIndex uniqueKeyIndex;
+    private final EntityManager entityManager;
 
     @Override
-    public List<UserResponseDTO> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return users.stream().map(this::toResponseDTO)
-                .collect(Collectors.toList());
+    @ReadFromReplica
+    @Transactional(readOnly = true)
+    public CursorPageResponseDTO<UserResponseDTO> getAllUsers(String name, String cursor, int size) {
+        int pageSize = validatePageSize(size);
+        List<User> users = userRepository.findPageAfter(decodeIdCursor(cursor), name, lookAhead(pageSize));
+        return toPage(users, pageSize, this::toResponseDTO, user -> encodeCursor(user.getId()));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<UserResponseDTO> consumer) {
+        try (Stream<User> users = userRepository.streamAll()) {
+            users.forEach(user -> {
+                consumer.accept(toResponseDTO(user));
+                entityManager.detach(user);
+            });
+        }
+    }
+
+    @Override
+    @Cacheable(cacheNames = USER_CACHE, key = "#id")
+    @ReadFromReplica
+    @Transactional(readOnly = true)
     public UserResponseDTO getUserById(UUID id) {
         validateRequest(id);
 
@@ -45,30 +80,46 @@ public class UserServiceImpl implements UserService {
         validateRequest(userRequestDTO);
 
         Optional.ofNullable(userRequestDTO.getEmail())
-                .filter(email -> !userRepository.existsByEmail(email))
+                .filter(email -> !uniqueKeyIndex.mightContainEmail(email) || !userRepository.existsByEmail(email))
                 .orElseThrow(() -> new ResourceAlreadyExistException("User with this email: " + userRequestDTO.getEmail() +
                         " already exists"));
 
         User user = toEntity(userRequestDTO);
-        user = userRepository.save(user);
+        try {
+            user = userRepository.save(user);
+        } catch (DataIntegrityViolationException ex) {
+            if (!IntegrityViolations.isUniqueViolation(ex, USER_EMAIL_CONSTRAINT)) {
+                throw ex;
+            }
+            throw new ResourceAlreadyExistException("User with this email: " + userRequestDTO.getEmail() +
+                    " already exists");
+        }
+        uniqueKeyIndex.addEmail(user.getEmail());
         return toResponseDTO(user);
     }
 
     @Override
-    public UserResponseDTO updateUser(UUID id, UserRequestDTO userRequestDTO) {
+    @CacheEvict(cacheNames = USER_CACHE, key = "#id")
+    public UserResponseDTO updateUser(UUID id, UserRequestDTO userRequestDTO, Long expectedVersion) {
         validateRequest(id);
         validateRequest(userRequestDTO);
 
-        User existingUser = userRepository.findById(id).orElseThrow(() ->
-                new ResourceNotFoundException(USER_NOT_FOUND_MESSAGE));
-        existingUser.setName(userRequestDTO.getName());
-        existingUser.setEmail(userRequestDTO.getEmail());
-        existingUser.setMembershipDate(userRequestDTO.getMembershipDate());
-        userRepository.save(existingUser);
-        return toResponseDTO(existingUser);
+        return OptimisticLocking.retry(() -> {
+            User existingUser = userRepository.findById(id).orElseThrow(() ->
+                    new ResourceNotFoundException(USER_NOT_FOUND_MESSAGE));
+            OptimisticLocking.checkVersion(existingUser.getVersion(), expectedVersion);
+
+            existingUser.setName(userRequestDTO.getName());
+            existingUser.setEmail(userRequestDTO.getEmail());
+            existingUser.setMembershipDate(userRequestDTO.getMembershipDate());
+            userRepository.save(existingUser);
+            uniqueKeyIndex.addEmail(existingUser.getEmail());
+            return toResponseDTO(existingUser);
+        });
     }
 
     @Override
+    @CacheEvict(cacheNames = USER_CACHE, key = "#id")
     public void deleteUser(UUID id) {
         validateRequest(id);
 
@@ -84,6 +135,7 @@ public class UserServiceImpl implements UserService {
         dto.setName(user.getName());
         dto.setEmail(user.getEmail());
         dto.setMembershipDate(user.getMembershipDate());
+        dto.setVersion(user.getVersion());
         return dto;
     }
 
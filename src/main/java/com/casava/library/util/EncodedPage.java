@@ -0,0 +1,9 @@
+package com.casava.library.util;
+
+import java.util.Set;
+import java.util.UUID;
+
+// Pre-encoded JSON of one page of books together with the IDs it lists, so a change to one book's copy count only
+// has to drop the cached pages that show that book.
+public record EncodedPage(byte[] json, Set<UUID> bookIds) {
+}
@@ -0,0 +1,34 @@
+package com.casava.library.util;
+
+// Strong validators derived from an entity's @Version, so a conditional GET can be answered from the version alone.
+public final class EntityTag {
+    private EntityTag() {
+    }
+
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // The same version in another encoding is another representation, so its validator differs from the JSON one.
+    public static String of(long version, String encoding) {
+        return "\"" + version + "-" + encoding + "\"";
+    }
+
+    // Version named by an If-Match header in any encoding, or null when the header is absent or "*".
+    public static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.strip();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new IllegalArgumentException("If-Match must be a single strong ETag");
+        }
+        String opaque = tag.substring(1, tag.length() - 1);
+        int encoding = opaque.indexOf('-');
+        try {
+            return Long.parseLong(encoding < 0 ? opaque : opaque.substring(0, encoding));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("If-Match must be a single strong ETag");
+        }
+    }
+}
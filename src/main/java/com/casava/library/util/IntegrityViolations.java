@@ -0,0 +1,23 @@
+package com.casava.library.util;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+// Tells a duplicate key apart from the other integrity violations (NOT NULL, CHECK) an insert can run into.
+public final class IntegrityViolations {
+    private IntegrityViolations() {
+    }
+
+    // Matched on the constraint Hibernate extracted from the driver's error; H2 reports it inside a longer index name.
+    public static boolean isUniqueViolation(DataIntegrityViolationException ex, String constraintName) {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String violated = violation.getConstraintName();
+                return violated != null && violated.toLowerCase(Locale.ROOT).contains(constraintName);
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package com.casava.library.util;
+
+import com.casava.library.advice.InternalCode;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.casava.library.constant.Constants.SUCCESS_MESSAGE;
+
+// Splices pre-encoded JSON into the same envelope ApiResponseDTO serializes to, without going through Jackson.
+public final class JsonEnvelope {
+    private static final byte[] SUCCESS_PREFIX = ("{\"success\":true,\"message\":\""
+            + new String(JsonStringEncoder.getInstance().quoteAsString(SUCCESS_MESSAGE))
+            + "\",\"internalCode\":\"" + InternalCode.CASAVA_LIB_001.name() + "\",\"timestamp\":\"")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA_FIELD = "\",\"data\":".getBytes(StandardCharsets.UTF_8);
+
+    private JsonEnvelope() {
+    }
+
+    public static byte[] success(byte[] data) {
+        byte[] timestamp = ResponseClock.timestampBytes();
+        byte[] body = new byte[SUCCESS_PREFIX.length + timestamp.length + DATA_FIELD.length + data.length + 1];
+        int position = append(body, 0, SUCCESS_PREFIX);
+        position = append(body, position, timestamp);
+        position = append(body, position, DATA_FIELD);
+        position = append(body, position, data);
+        body[position] = '}';
+        return body;
+    }
+
+    private static int append(byte[] target, int position, byte[] source) {
+        System.arraycopy(source, 0, target, position, source.length);
+        return position + source.length;
+    }
+}
@@ -0,0 +1,50 @@
+package com.casava.library.util;
+
+import com.casava.library.exception.PreconditionFailedException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static com.casava.library.constant.Constants.OPTIMISTIC_RETRY_ATTEMPTS;
+import static com.casava.library.constant.Constants.OPTIMISTIC_RETRY_BASE_DELAY_MS;
+import static com.casava.library.constant.Constants.STALE_VERSION_MESSAGE;
+
+// Read-modify-write against @Version columns. A write that loses the race is re-run from a fresh read a few times,
+// each after a random pause of up to base * 2^n ms so colliding writers spread out instead of retrying in lockstep.
+public final class OptimisticLocking {
+    private OptimisticLocking() {
+    }
+
+    // The attempt must re-read the row it changes; the last conflict is rethrown once the attempts run out.
+    public static <T> T retry(Supplier<T> attempt) {
+        for (int failures = 1; ; failures++) {
+            try {
+                return attempt.get();
+            } catch (OptimisticLockingFailureException ex) {
+                if (failures >= OPTIMISTIC_RETRY_ATTEMPTS) {
+                    throw ex;
+                }
+                pause(failures, ex);
+            }
+        }
+    }
+
+    // A client that sent the version it edited (If-Match) must not overwrite a newer one, so this is never retried and
+    // fails the precondition rather than reporting a conflict.
+    public static void checkVersion(long currentVersion, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != currentVersion) {
+            throw new PreconditionFailedException(STALE_VERSION_MESSAGE);
+        }
+    }
+
+    private static void pause(int failures, OptimisticLockingFailureException conflict) {
+        long bound = OPTIMISTIC_RETRY_BASE_DELAY_MS << failures;
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
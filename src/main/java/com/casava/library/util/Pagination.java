@@ -0,0 +1,83 @@
+package com.casava.library.util;
+
+import com.casava.library.dto.response.CursorPageResponseDTO;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static com.casava.library.constant.Constants.INVALID_CURSOR_MESSAGE;
+import static com.casava.library.constant.Constants.MAX_PAGE_SIZE;
+
+public class Pagination {
+    public static final UUID FIRST_ID = new UUID(0L, 0L);
+    public static final UUID LAST_ID = new UUID(-1L, -1L);
+    public static final LocalDate EARLIEST_LOAN_DATE = LocalDate.of(1, 1, 1);
+    public static final LocalDate LATEST_LOAN_DATE = LocalDate.of(9999, 12, 31);
+    public static final long HIGHEST_COUNT = Long.MAX_VALUE;
+    public static final double HIGHEST_SCORE = Double.POSITIVE_INFINITY;
+    private static final String KEY_SEPARATOR = "|";
+
+    public static int validatePageSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be greater than or equal to 1");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    // One extra row is fetched so we know whether another page exists without a count query.
+    public static Pageable lookAhead(int size) {
+        return PageRequest.ofSize(size + 1);
+    }
+
+    public static String encodeCursor(Object... keys) {
+        StringBuilder joined = new StringBuilder();
+        for (Object key : keys) {
+            if (!joined.isEmpty()) {
+                joined.append(KEY_SEPARATOR);
+            }
+            joined.append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(joined.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decodeCursor(String cursor, int expectedKeys) {
+        try {
+            String joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = joined.split(Pattern.quote(KEY_SEPARATOR), -1);
+            if (keys.length != expectedKeys) {
+                throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+            }
+            return keys;
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+        }
+    }
+
+    public static UUID decodeIdCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST_ID;
+        }
+        try {
+            return UUID.fromString(decodeCursor(cursor, 1)[0]);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+        }
+    }
+
+    public static <E, T> CursorPageResponseDTO<T> toPage(List<E> rows, int size, Function<E, T> mapper,
+                                                         Function<E, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        List<T> items = page.stream().map(mapper).toList();
+        String nextCursor = hasNext ? cursorOf.apply(page.get(page.size() - 1)) : null;
+        return new CursorPageResponseDTO<>(items, items.size(), hasNext, nextCursor);
+    }
+}
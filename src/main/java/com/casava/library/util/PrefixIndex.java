@@ -0,0 +1,244 @@
+package com.casava.library.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+// Immutable, case-insensitive prefix index. Entries are kept sorted in one packed UTF-8 array, so every
+// prefix maps to a contiguous range; the heaviest entries of a range are found through per-block maxima
+// instead of a node per character. Costs roughly 24 bytes per entry plus the UTF-8 text.
+public final class PrefixIndex {
+    private static final int BLOCK_SIZE = 64;
+    private static final PrefixIndex EMPTY = build(List.of());
+
+    private final byte[] text;
+    private final int[] offsets;
+    private final int[] weights;
+    private final long[] idHigh;
+    private final long[] idLow;
+    private final int[] blockMax;
+    private final int[] blockTree;
+    private final int leaves;
+
+    public record Entry(String text, int weight, UUID id) {
+    }
+
+    private PrefixIndex(byte[] text, int[] offsets, int[] weights, long[] idHigh, long[] idLow) {
+        this.text = text;
+        this.offsets = offsets;
+        this.weights = weights;
+        this.idHigh = idHigh;
+        this.idLow = idLow;
+
+        int blocks = (weights.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        this.blockMax = new int[blocks];
+        for (int block = 0; block < blocks; block++) {
+            int start = block * BLOCK_SIZE;
+            blockMax[block] = scanMax(start, Math.min(start + BLOCK_SIZE, weights.length));
+        }
+        this.leaves = Integer.highestOneBit(Math.max(1, blocks - 1)) << 1;
+        this.blockTree = new int[2 * leaves];
+        for (int node = 0; node < leaves; node++) {
+            blockTree[leaves + node] = node < blocks ? blockMax[node] : -1;
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            blockTree[node] = heavier(blockTree[2 * node], blockTree[2 * node + 1]);
+        }
+    }
+
+    public static PrefixIndex empty() {
+        return EMPTY;
+    }
+
+    public static PrefixIndex build(List<Entry> entries) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(Entry::text, PrefixIndex::compareIgnoreCase));
+
+        byte[][] encoded = new byte[sorted.size()][];
+        int[] offsets = new int[sorted.size() + 1];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = sorted.get(i).text().getBytes(StandardCharsets.UTF_8);
+            offsets[i + 1] = Math.addExact(offsets[i], encoded[i].length);
+        }
+        byte[] text = new byte[offsets[encoded.length]];
+        int[] weights = new int[encoded.length];
+        long[] idHigh = new long[encoded.length];
+        long[] idLow = new long[encoded.length];
+        for (int i = 0; i < encoded.length; i++) {
+            Entry entry = sorted.get(i);
+            System.arraycopy(encoded[i], 0, text, offsets[i], encoded[i].length);
+            weights[i] = entry.weight();
+            if (entry.id() != null) {
+                idHigh[i] = entry.id().getMostSignificantBits();
+                idLow[i] = entry.id().getLeastSignificantBits();
+            }
+        }
+        return new PrefixIndex(text, offsets, weights, idHigh, idLow);
+    }
+
+    public int size() {
+        return weights.length;
+    }
+
+    public long sizeInBytes() {
+        return text.length + 4L * (offsets.length + weights.length + blockMax.length + blockTree.length)
+                + 8L * (idHigh.length + idLow.length);
+    }
+
+    // Heaviest entries starting with the prefix, best first; ties keep alphabetical order.
+    public List<Entry> top(String prefix, int limit, Predicate<Entry> filter) {
+        int[] folded = prefix.codePoints().map(Character::toLowerCase).toArray();
+        int from = lowerBound(folded, false);
+        int to = lowerBound(folded, true);
+        List<Entry> result = new ArrayList<>(Math.min(limit, to - from));
+        if (from >= to || limit <= 0) {
+            return result;
+        }
+
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> heavier(a[2], b[2]) == a[2] ? -1 : 1);
+        ranges.add(new int[]{from, to, max(from, to)});
+        while (!ranges.isEmpty() && result.size() < limit) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            Entry entry = entryAt(best);
+            if (filter.test(entry)) {
+                result.add(entry);
+            }
+            if (range[0] < best) {
+                ranges.add(new int[]{range[0], best, max(range[0], best)});
+            }
+            if (best + 1 < range[1]) {
+                ranges.add(new int[]{best + 1, range[1], max(best + 1, range[1])});
+            }
+        }
+        return result;
+    }
+
+    // Weight recorded for the entry with this text and id, or 0 when absent.
+    public int weightOf(String value, UUID id) {
+        int[] folded = value.codePoints().map(Character::toLowerCase).toArray();
+        for (int i = lowerBound(folded, false), end = lowerBound(folded, true); i < end; i++) {
+            if (idHigh[i] == id.getMostSignificantBits() && idLow[i] == id.getLeastSignificantBits()) {
+                return weights[i];
+            }
+        }
+        return 0;
+    }
+
+    private Entry entryAt(int index) {
+        String value = new String(text, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+        UUID id = idHigh[index] == 0 && idLow[index] == 0 ? null : new UUID(idHigh[index], idLow[index]);
+        return new Entry(value, weights[index], id);
+    }
+
+    // First entry that sorts at or after the prefix, or - with pastPrefix - the first that no longer starts with it.
+    private int lowerBound(int[] prefix, boolean pastPrefix) {
+        int low = 0;
+        int high = weights.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int comparison = comparePrefix(mid, prefix);
+            if (comparison < 0 || (pastPrefix && comparison == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Negative when the entry sorts before every string with this prefix, 0 when it starts with it.
+    private int comparePrefix(int index, int[] prefix) {
+        int position = offsets[index];
+        int end = offsets[index + 1];
+        for (int expected : prefix) {
+            if (position >= end) {
+                return -1;
+            }
+            int codePoint;
+            int first = text[position] & 0xFF;
+            if (first < 0x80) {
+                codePoint = first;
+                position += 1;
+            } else if (first < 0xE0) {
+                codePoint = (first & 0x1F) << 6 | (text[position + 1] & 0x3F);
+                position += 2;
+            } else if (first < 0xF0) {
+                codePoint = (first & 0x0F) << 12 | (text[position + 1] & 0x3F) << 6 | (text[position + 2] & 0x3F);
+                position += 3;
+            } else {
+                codePoint = (first & 0x07) << 18 | (text[position + 1] & 0x3F) << 12
+                        | (text[position + 2] & 0x3F) << 6 | (text[position + 3] & 0x3F);
+                position += 4;
+            }
+            int actual = Character.toLowerCase(codePoint);
+            if (actual != expected) {
+                return Integer.compare(actual, expected);
+            }
+        }
+        return 0;
+    }
+
+    private int max(int from, int to) {
+        int firstBlock = (from + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int lastBlock = to / BLOCK_SIZE;
+        if (firstBlock >= lastBlock) {
+            return scanMax(from, to);
+        }
+        int best = heavier(scanMax(from, firstBlock * BLOCK_SIZE), scanMax(lastBlock * BLOCK_SIZE, to));
+        int left = firstBlock + leaves;
+        int right = lastBlock + leaves;
+        while (left < right) {
+            if ((left & 1) == 1) {
+                best = heavier(best, blockTree[left++]);
+            }
+            if ((right & 1) == 1) {
+                best = heavier(best, blockTree[--right]);
+            }
+            left >>= 1;
+            right >>= 1;
+        }
+        return best;
+    }
+
+    private int scanMax(int from, int to) {
+        int best = -1;
+        for (int i = from; i < to; i++) {
+            best = heavier(best, i);
+        }
+        return best;
+    }
+
+    private int heavier(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        if (weights[a] != weights[b]) {
+            return weights[a] > weights[b] ? a : b;
+        }
+        return Math.min(a, b);
+    }
+
+    static int compareIgnoreCase(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int left = a.codePointAt(i);
+            int right = b.codePointAt(j);
+            int comparison = Integer.compare(Character.toLowerCase(left), Character.toLowerCase(right));
+            if (comparison != 0) {
+                return comparison;
+            }
+            i += Character.charCount(left);
+            j += Character.charCount(right);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+}
@@ -0,0 +1,51 @@
+package com.casava.library.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Response timestamps only have second precision, so the formatted value is shared until the second changes.
+public final class ResponseClock {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private static final Tick NONE = new Tick(Long.MIN_VALUE, null, null);
+
+    private static volatile Clock clock = Clock.systemDefaultZone();
+    private static volatile Tick current = NONE;
+
+    private record Tick(long epochSecond, String text, byte[] bytes) {
+    }
+
+    private ResponseClock() {
+    }
+
+    public static String timestamp() {
+        return tick().text();
+    }
+
+    // Shared array: callers must copy it, never modify it.
+    static byte[] timestampBytes() {
+        return tick().bytes();
+    }
+
+    // For tests: reads the time from the given clock and forgets the timestamp formatted from the previous one.
+    static void useClock(Clock replacement) {
+        clock = replacement;
+        current = NONE;
+    }
+
+    private static Tick tick() {
+        Clock source = clock;
+        long epochSecond = Math.floorDiv(source.millis(), 1000L);
+        Tick tick = current;
+        if (tick.epochSecond() != epochSecond) {
+            String text = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), source.getZone())
+                    .format(TIMESTAMP_FORMAT);
+            tick = new Tick(epochSecond, text, text.getBytes(StandardCharsets.US_ASCII));
+            current = tick;
+        }
+        return tick;
+    }
+}
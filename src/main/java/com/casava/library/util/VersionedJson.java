@@ -0,0 +1,6 @@
+package com.casava.library.util;
+
+// Pre-encoded JSON of one entity together with the version of the row it was encoded from, cached as one value so
+// the ETag always describes the bytes served with it.
+public record VersionedJson(long version, byte[] json) {
+}
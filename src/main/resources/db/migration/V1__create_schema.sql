@@ -0,0 +1,47 @@
+-- The schema as Hibernate generated it under ddl-auto=update; databases created that way are baselined at this version.
+CREATE TABLE books (
+    id               uuid         NOT NULL,
+    title            varchar(255),
+    author           varchar(255),
+    published_year   integer      NOT NULL,
+    isbn             varchar(255),
+    copies_available integer      NOT NULL,
+    version          bigint       NOT NULL DEFAULT 0,
+    CONSTRAINT books_pkey PRIMARY KEY (id),
+    CONSTRAINT books_isbn_key UNIQUE (isbn)
+);
+
+CREATE TABLE users (
+    id              uuid         NOT NULL,
+    name            varchar(255),
+    email           varchar(255),
+    membership_date date,
+    version         bigint       NOT NULL DEFAULT 0,
+    CONSTRAINT users_pkey PRIMARY KEY (id),
+    CONSTRAINT users_email_key UNIQUE (email)
+);
+
+CREATE TABLE loans (
+    id          uuid           NOT NULL,
+    book_id     uuid,
+    user_id     uuid,
+    loan_date   date,
+    return_date date,
+    fine        numeric(10, 2),
+    version     bigint         NOT NULL DEFAULT 0,
+    CONSTRAINT loans_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE fine_run_partitions (
+    id              uuid    NOT NULL,
+    run_date        date,
+    partition_index integer NOT NULL,
+    lower_bound     uuid,
+    upper_bound     uuid,
+    last_loan_id    uuid,
+    loans_processed bigint  NOT NULL,
+    fines_updated   bigint  NOT NULL,
+    completed       boolean NOT NULL,
+    CONSTRAINT fine_run_partitions_pkey PRIMARY KEY (id),
+    CONSTRAINT fine_run_partitions_run_date_partition_index_key UNIQUE (run_date, partition_index)
+);
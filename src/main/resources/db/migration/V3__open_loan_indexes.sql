@@ -0,0 +1,8 @@
+CREATE INDEX IF NOT EXISTS loans_open_loan_date_idx ON loans (loan_date, id) INCLUDE (user_id, book_id)
+    WHERE return_date IS NULL;
+
+CREATE INDEX IF NOT EXISTS loans_open_user_idx ON loans (user_id, loan_date, id) WHERE return_date IS NULL;
+
+CREATE INDEX IF NOT EXISTS loans_open_book_idx ON loans (book_id, loan_date, id) WHERE return_date IS NULL;
+
+CREATE INDEX IF NOT EXISTS loans_open_id_idx ON loans (id) INCLUDE (loan_date, fine) WHERE return_date IS NULL;
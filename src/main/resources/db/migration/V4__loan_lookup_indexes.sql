@@ -0,0 +1,8 @@
+-- Built concurrently so that loans stay writable while an existing table is indexed, which is why this migration runs
+-- outside a transaction (V4__loan_lookup_indexes.sql.conf). A build that fails leaves an invalid index behind: drop it
+-- and repair the schema history before migrating again.
+
+-- A user's loan history, newest first, and every loan of a book, returned or not.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS loans_user_loan_date_idx ON loans (user_id, loan_date DESC, id DESC);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS loans_book_id_idx ON loans (book_id);
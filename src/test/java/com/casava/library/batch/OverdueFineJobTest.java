@@ -0,0 +1,233 @@
+package com.casava.library.batch;
+
+import com.casava.library.entity.FineRunPartition;
+import com.casava.library.entity.Loan;
+import com.casava.library.repository.FineRunPartitionRepository;
+import com.casava.library.repository.LoanRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.casava.library.constant.Constants.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs on an embedded PostgreSQL, which the job's advisory lock needs.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OverdueFineJob.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+class OverdueFineJobTest {
+    private static final LocalDate RUN_DATE = LocalDate.of(2024, 3, 1);
+    private static final int OVERDUE_LOANS = 300;
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private OverdueFineJob overdueFineJob;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private FineRunPartitionRepository partitionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @BeforeEach
+    void setUp() {
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < OVERDUE_LOANS; i++) {
+            loans.add(loan(RUN_DATE.minusDays(LOAN_PERIOD_DAYS + 1 + i % 120), null));
+        }
+        for (int i = 0; i < 50; i++) {
+            loans.add(loan(RUN_DATE.minusDays(i % (LOAN_PERIOD_DAYS + 1)), null));
+            loans.add(loan(RUN_DATE.minusDays(60), RUN_DATE.minusDays(5)));
+        }
+        loanRepository.saveAll(loans);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAllInBatch();
+        partitionRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void run_ShouldFineEveryOverdueLoanExactlyOnce() {
+        double countedBefore = meterRegistry.counter(FINE_LOANS_METRIC).count();
+
+        OverdueFineJob.FineRunSummary summary = overdueFineJob.run(RUN_DATE).orElseThrow();
+
+        assertEquals(FINE_JOB_PARTITIONS, summary.partitions());
+        assertEquals(OVERDUE_LOANS, summary.loansProcessed());
+        assertEquals(OVERDUE_LOANS, summary.finesUpdated());
+        for (Loan loan : loanRepository.findAll()) {
+            boolean overdue = loan.getReturnDate() == null && loan.getLoanDate().isBefore(RUN_DATE.minusDays(LOAN_PERIOD_DAYS));
+            if (overdue) {
+                assertEquals(0, OverdueFineJob.fineFor(loan.getLoanDate(), RUN_DATE).compareTo(loan.getFine()));
+            } else {
+                assertNull(loan.getFine());
+            }
+        }
+        assertTrue(partitionRepository.findByRunDateOrderByPartitionIndex(RUN_DATE).stream()
+                .allMatch(FineRunPartition::isCompleted));
+        assertEquals(OVERDUE_LOANS, meterRegistry.counter(FINE_LOANS_METRIC).count() - countedBefore);
+    }
+
+    @Test
+    void run_WithTimeOrderedLoanIds_ShouldSpreadLoansAcrossPartitions() {
+        overdueFineJob.run(RUN_DATE);
+
+        List<FineRunPartition> partitions = partitionRepository.findByRunDateOrderByPartitionIndex(RUN_DATE);
+        long busiest = partitions.stream().mapToLong(FineRunPartition::getLoansProcessed).max().orElseThrow();
+        assertEquals(FINE_JOB_PARTITIONS, partitions.stream().filter(p -> p.getLoansProcessed() > 0).count());
+        assertTrue(busiest <= OVERDUE_LOANS / FINE_JOB_PARTITIONS + 1, "busiest partition assessed " + busiest + " loans");
+    }
+
+    @Test
+    void run_AfterCrash_ShouldOnlyResumeUnfinishedPartitions() {
+        overdueFineJob.run(RUN_DATE);
+        List<Loan> loans = loanRepository.findAll();
+        loans.forEach(loan -> loan.setFine(null));
+        loanRepository.saveAll(loans);
+        List<FineRunPartition> partitions = partitionRepository.findByRunDateOrderByPartitionIndex(RUN_DATE);
+        List<FineRunPartition> interrupted = partitions.subList(FINE_JOB_PARTITIONS / 2, FINE_JOB_PARTITIONS);
+        interrupted.forEach(partition -> {
+            partition.setCompleted(false);
+            partition.setLastLoanId(partition.getLowerBound());
+        });
+        partitionRepository.saveAll(interrupted);
+
+        OverdueFineJob.FineRunSummary summary = overdueFineJob.run(RUN_DATE).orElseThrow();
+
+        UUID resumedFrom = interrupted.get(0).getLowerBound();
+        Map<Boolean, Long> finedByHalf = loanRepository.findAll().stream()
+                .filter(loan -> loan.getFine() != null)
+                .collect(Collectors.partitioningBy(loan -> isAfter(loan.getId(), resumedFrom), Collectors.counting()));
+        assertEquals(FINE_JOB_PARTITIONS / 2, summary.partitions());
+        assertEquals(0, finedByHalf.get(false));
+        assertEquals(summary.finesUpdated(), finedByHalf.get(true));
+        assertTrue(summary.finesUpdated() > 0 && summary.finesUpdated() < OVERDUE_LOANS);
+    }
+
+    @Test
+    void resume_ShouldFinishAnInterruptedRunStartedOnAnEarlierDay() {
+        overdueFineJob.run(RUN_DATE);
+        List<FineRunPartition> interrupted = partitionRepository.findByRunDateOrderByPartitionIndex(RUN_DATE)
+                .subList(0, 3);
+        interrupted.forEach(partition -> partition.setCompleted(false));
+        partitionRepository.saveAll(interrupted);
+
+        OverdueFineJob.FineRunSummary summary = overdueFineJob.resume().orElseThrow();
+
+        assertEquals(RUN_DATE, summary.runDate());
+        assertEquals(interrupted.size(), summary.partitions());
+        assertTrue(overdueFineJob.resume().isEmpty());
+    }
+
+    @Test
+    void run_WhileAnotherInstanceHoldsTheLock_ShouldSkip() throws SQLException {
+        try (Connection otherInstance = postgres.getPostgresDatabase().getConnection()) {
+            advisoryLock(otherInstance, "select pg_advisory_lock(?)");
+
+            Optional<OverdueFineJob.FineRunSummary> skipped = overdueFineJob.run(RUN_DATE);
+
+            assertTrue(skipped.isEmpty());
+            assertTrue(partitionRepository.findAll().isEmpty());
+            assertTrue(loanRepository.findAll().stream().allMatch(loan -> loan.getFine() == null));
+            advisoryLock(otherInstance, "select pg_advisory_unlock(?)");
+        }
+
+        assertTrue(overdueFineJob.run(RUN_DATE).isPresent());
+    }
+
+    @Test
+    void run_SameDayAfterCompletion_ShouldBeNoOp() {
+        overdueFineJob.run(RUN_DATE);
+
+        OverdueFineJob.FineRunSummary summary = overdueFineJob.run(RUN_DATE).orElseThrow();
+
+        assertEquals(0, summary.partitions());
+        assertEquals(0, summary.loansProcessed());
+    }
+
+    @Test
+    void run_NextDay_ShouldRaiseUncappedFinesAndDropOldCheckpoints() {
+        overdueFineJob.run(RUN_DATE);
+
+        OverdueFineJob.FineRunSummary summary = overdueFineJob.run(RUN_DATE.plusDays(1)).orElseThrow();
+
+        Map<UUID, Loan> loans = loanRepository.findAll().stream().collect(Collectors.toMap(Loan::getId, Function.identity()));
+        long capped = loans.values().stream().filter(loan -> loan.getFine() != null && loan.getFine().compareTo(MAX_FINE) == 0).count();
+        // Three loans taken exactly a loan period before the first run only become overdue on the second.
+        assertEquals(OVERDUE_LOANS + 3, summary.loansProcessed());
+        assertTrue(summary.finesUpdated() < summary.loansProcessed());
+        assertTrue(capped > 0);
+        assertTrue(partitionRepository.findByRunDateOrderByPartitionIndex(RUN_DATE).isEmpty());
+    }
+
+    @Test
+    void fineFor_ShouldChargePerDayOverdueUpToCap() {
+        LocalDate due = RUN_DATE.minusDays(LOAN_PERIOD_DAYS);
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(OverdueFineJob.fineFor(due, RUN_DATE)));
+        assertEquals(new BigDecimal("0.75"), OverdueFineJob.fineFor(due.minusDays(3), RUN_DATE));
+        assertEquals(MAX_FINE, OverdueFineJob.fineFor(due.minusDays(1000), RUN_DATE));
+    }
+
+    private static void advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, FINE_RUN_LOCK_KEY);
+            statement.execute();
+        }
+    }
+
+    private static boolean isAfter(UUID id, UUID bound) {
+        int high = Long.compareUnsigned(id.getMostSignificantBits(), bound.getMostSignificantBits());
+        return high > 0 || (high == 0 && Long.compareUnsigned(id.getLeastSignificantBits(), bound.getLeastSignificantBits()) > 0);
+    }
+
+    private static Loan loan(LocalDate loanDate, LocalDate returnDate) {
+        Loan loan = new Loan();
+        loan.setBookId(UUID.randomUUID());
+        loan.setUserId(UUID.randomUUID());
+        loan.setLoanDate(loanDate);
+        loan.setReturnDate(returnDate);
+        return loan;
+    }
+}
@@ -0,0 +1,46 @@
+package com.casava.library.config;
+
+import com.casava.library.advice.ErrorResponse;
+import com.casava.library.dto.request.BatchLoanRequestDTO;
+import com.casava.library.dto.response.BookImportErrorDTO;
+import com.casava.library.dto.response.LoanResponseDTO;
+import com.casava.library.metrics.StatementCounter;
+import com.casava.library.repository.projection.LoanedBook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LibraryRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    void setUp() {
+        new LibraryRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void registerHints_ShouldRegisterDtosForJacksonBinding() {
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(LoanResponseDTO.class, "getFine").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(BookImportErrorDTO.class, "getErrors").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(BatchLoanRequestDTO.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(ErrorResponse.class).test(hints));
+    }
+
+    @Test
+    void registerHints_ShouldRegisterClassesHibernateInstantiatesReflectively() throws NoSuchMethodException {
+        assertTrue(RuntimeHintsPredicates.reflection().onConstructor(StatementCounter.class.getConstructor()).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onConstructor(LoanedBook.class.getDeclaredConstructors()[0]).test(hints));
+    }
+
+    @Test
+    void registerHints_ShouldRegisterTheAdmissionControlledConnectionProxy() {
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(Connection.class).test(hints));
+    }
+}
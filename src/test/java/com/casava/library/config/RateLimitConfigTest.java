@@ -0,0 +1,23 @@
+package com.casava.library.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static com.casava.library.constant.Constants.DB_ADMISSION_QUEUED_METRIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitConfigTest {
+
+    @Test
+    void databaseWaiters_ShouldSumJdbcAndR2dbcPoolsAndTheAdmissionQueue() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Gauge.builder("hikaricp.connections.pending", () -> 2).tag("pool", "primary").register(meterRegistry);
+        Gauge.builder("hikaricp.connections.pending", () -> 1).tag("pool", "replica").register(meterRegistry);
+        Gauge.builder("r2dbc.pool.pending", () -> 4).tag("name", "connectionFactory").register(meterRegistry);
+        Gauge.builder(DB_ADMISSION_QUEUED_METRIC, () -> 3).register(meterRegistry);
+
+        assertEquals(10, RateLimitConfig.databaseWaiters(meterRegistry).getAsInt());
+    }
+}
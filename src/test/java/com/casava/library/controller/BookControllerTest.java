@@ -0,0 +1,135 @@
+package com.casava.library.controller;
+
+import com.casava.library.advice.GlobalExceptionAdvice;
+import com.casava.library.config.MessageConverterConfig;
+import com.casava.library.dto.request.BookRequestDTO;
+import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.exception.PreconditionFailedException;
+import com.casava.library.service.BookImportService;
+import com.casava.library.service.BookJsonService;
+import com.casava.library.service.BookService;
+import com.casava.library.util.EncodedPage;
+import com.casava.library.util.VersionedJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class BookControllerTest {
+    private static final String SMILE = "application/x-jackson-smile";
+
+    private final BookService bookService = mock(BookService.class);
+    private final BookJsonService bookJsonService = mock(BookJsonService.class);
+    private final UUID bookId = UUID.randomUUID();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        MessageConverterConfig config = new MessageConverterConfig();
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                        new BookController(bookService, bookJsonService, mock(BookImportService.class), objectMapper))
+                .setMessageConverters(new ByteArrayHttpMessageConverter(),
+                        new MappingJackson2HttpMessageConverter(objectMapper),
+                        config.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()),
+                        config.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()))
+                .setControllerAdvice(new GlobalExceptionAdvice(new SimpleMeterRegistry()))
+                .addInterceptors(config.varyByAcceptInterceptor())
+                .build();
+
+        BookResponseDTO book = new BookResponseDTO();
+        book.setId(bookId);
+        book.setTitle("Test Book");
+        book.setVersion(3L);
+        when(bookService.getBookById(bookId)).thenReturn(book);
+        when(bookJsonService.getBookById(bookId)).thenReturn(new VersionedJson(3L,
+                ("{\"id\":\"" + bookId + "\",\"title\":\"Test Book\"}").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void getBookById_AcceptingAnything_ShouldAnswerJsonTaggedWithTheVersion() throws Exception {
+        mockMvc.perform(get("/books/{id}", bookId).accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(jsonPath("$.data.title").value("Test Book"));
+    }
+
+    @Test
+    void getAllBooks_AcceptingAnything_ShouldAnswerJson() throws Exception {
+        when(bookJsonService.getAllBooks(null, null, null, 20))
+                .thenReturn(new EncodedPage("{\"items\":[]}".getBytes(StandardCharsets.UTF_8), Set.of()));
+
+        mockMvc.perform(get("/books").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void getBookById_AsSmile_ShouldSendATagOfItsOwn() throws Exception {
+        mockMvc.perform(get("/books/{id}", bookId).accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-smile\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void getBookById_AsCbor_ShouldSendATagOfItsOwn() throws Exception {
+        mockMvc.perform(get("/books/{id}", bookId).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-cbor\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void getBookById_AsCbor_WithTheJsonTag_ShouldSendTheBody() throws Exception {
+        mockMvc.perform(get("/books/{id}", bookId).accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-cbor\""));
+    }
+
+    @Test
+    void getBookById_AsCbor_WithItsOwnTag_ShouldAnswerNotModified() throws Exception {
+        mockMvc.perform(get("/books/{id}", bookId).accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3-cbor\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void updateBook_WithAStaleIfMatch_ShouldAnswerPreconditionFailed() throws Exception {
+        when(bookService.updateBook(eq(bookId), any(BookRequestDTO.class), eq(2L)))
+                .thenThrow(new PreconditionFailedException("The resource has changed since it was read"));
+
+        mockMvc.perform(put("/books/{id}", bookId).header(HttpHeaders.IF_MATCH, "\"2-cbor\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Title\",\"author\":\"Author\",\"publishedYear\":2020," +
+                                "\"isbn\":\"1234567890\",\"copiesAvailable\":1}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.internalCode").value("CASAVA_LIB_011"));
+    }
+}
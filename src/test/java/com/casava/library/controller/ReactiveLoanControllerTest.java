@@ -0,0 +1,80 @@
+package com.casava.library.controller;
+
+import com.casava.library.advice.GlobalExceptionAdvice;
+import com.casava.library.config.ReactiveConfig;
+import com.casava.library.dto.request.LoanRequestDTO;
+import com.casava.library.dto.response.LoanResponseDTO;
+import com.casava.library.exception.ResourceConflictException;
+import com.casava.library.service.ReactiveLoanService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveLoanControllerTest {
+    private final ReactiveLoanService loanService = mock(ReactiveLoanService.class);
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        client = WebTestClient.bindToController(new ReactiveLoanController(loanService))
+                .controllerAdvice(new GlobalExceptionAdvice(new SimpleMeterRegistry()))
+                .httpMessageCodecs(new ReactiveConfig().binaryCodecCustomizer(builder, builder.build())::customize)
+                .build();
+    }
+
+    @Test
+    void recordLoan_ShouldAnswerCreatedInTheJsonEnvelope() {
+        UUID loanId = UUID.randomUUID();
+        LoanResponseDTO loan = new LoanResponseDTO();
+        loan.setId(loanId);
+        when(loanService.recordLoan(any(LoanRequestDTO.class))).thenReturn(Mono.just(loan));
+
+        client.post().uri("/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"bookId\":\"" + UUID.randomUUID() + "\",\"userId\":\"" + UUID.randomUUID() +
+                        "\",\"loanDate\":\"" + LocalDate.now() + "\"}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.internalCode").isEqualTo("CASAVA_LIB_001")
+                .jsonPath("$.data.id").isEqualTo(loanId.toString());
+    }
+
+    @Test
+    void recordLoan_WithMissingFields_ShouldListThemInTheErrorEnvelope() {
+        client.post().uri("/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"userId\":null}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.internalCode").isEqualTo("CASAVA_LIB_004")
+                .jsonPath("$.data.bookId").isEqualTo("Book ID is required");
+    }
+
+    @Test
+    void returnLoan_WhenAlreadyReturned_ShouldAnswerConflictInCbor() {
+        UUID loanId = UUID.randomUUID();
+        when(loanService.returnLoan(loanId, LocalDate.of(2025, 1, 8)))
+                .thenReturn(Mono.error(new ResourceConflictException("Loan has already been returned")));
+
+        client.put().uri("/loans/{id}/return?returnDate=2025-01-08", loanId)
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR);
+    }
+}
@@ -0,0 +1,64 @@
+package com.casava.library.controller;
+
+import com.casava.library.config.MessageConverterConfig;
+import com.casava.library.dto.response.UserResponseDTO;
+import com.casava.library.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class UserControllerTest {
+    private final UserService userService = mock(UserService.class);
+    private final UUID userId = UUID.randomUUID();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        MessageConverterConfig config = new MessageConverterConfig();
+        // Binary converters first, as Boot orders converter beans ahead of its defaults.
+        mockMvc = MockMvcBuilders.standaloneSetup(new UserController(userService, objectMapper))
+                .setMessageConverters(config.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()),
+                        config.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()),
+                        new MappingJackson2HttpMessageConverter(objectMapper))
+                .addInterceptors(config.varyByAcceptInterceptor())
+                .build();
+
+        UserResponseDTO user = new UserResponseDTO();
+        user.setId(userId);
+        user.setName("Test User");
+        user.setVersion(2L);
+        when(userService.getUserById(userId)).thenReturn(user);
+    }
+
+    @Test
+    void getUserById_AcceptingAnything_ShouldAnswerJsonTaggedWithTheVersion() throws Exception {
+        mockMvc.perform(get("/users/{id}", userId).accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(jsonPath("$.data.name").value("Test User"));
+    }
+
+    @Test
+    void getUserById_AsCbor_ShouldSendATagOfItsOwn() throws Exception {
+        mockMvc.perform(get("/users/{id}", userId).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2-cbor\""));
+    }
+}
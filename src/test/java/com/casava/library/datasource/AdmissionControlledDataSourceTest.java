@@ -0,0 +1,75 @@
+package com.casava.library.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdmissionControlledDataSourceTest {
+
+    private DataSource pool;
+    private Connection pooledConnection;
+    private AdmissionControlledDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = mock(DataSource.class);
+        pooledConnection = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(pooledConnection);
+        dataSource = new AdmissionControlledDataSource(pool, 1, 100);
+    }
+
+    @Test
+    void getConnection_WhenAllPermitsAreHeld_ShouldTimeOutWithoutTouchingThePool() throws SQLException {
+        Connection held = dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        verify(pool, times(1)).getConnection();
+        held.close();
+    }
+
+    @Test
+    void close_ShouldReleaseThePermitOnlyOnce() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        assertEquals(1, dataSource.getAvailablePermits());
+        verify(pooledConnection, times(1)).close();
+    }
+
+    @Test
+    void getConnection_ShouldAdmitAQueuedVirtualThreadOnceAConnectionIsClosed() throws Exception {
+        dataSource = new AdmissionControlledDataSource(pool, 1, 5_000);
+        Connection held = dataSource.getConnection();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Connection> waiting = executor.submit(() -> dataSource.getConnection());
+            while (dataSource.getQueueLength() == 0) {
+                Thread.onSpinWait();
+            }
+            held.close();
+
+            Connection admitted = waiting.get(5, TimeUnit.SECONDS);
+            assertEquals(0, dataSource.getAvailablePermits());
+            admitted.close();
+        }
+    }
+
+    @Test
+    void getConnection_WhenThePoolFails_ShouldReturnThePermit() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLException("down"));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+}
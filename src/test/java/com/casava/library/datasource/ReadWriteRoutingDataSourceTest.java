@@ -0,0 +1,145 @@
+package com.casava.library.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private ReplicaLagMonitor lagMonitor;
+    private ReadWriteRoutingDataSource dataSource;
+    private final AtomicInteger cookiesSet = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replica = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        lagMonitor = new ReplicaLagMonitor(null, null, Duration.ofSeconds(5));
+        lagMonitor.update(0);
+        dataSource = new ReadWriteRoutingDataSource(primary, replica, lagMonitor, new SimpleMeterRegistry());
+        ReplicaRoutingContext.openSession(false, cookiesSet::incrementAndGet);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingContext.closeSession();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    void getConnection_ReadOnlyReplicaRead_ShouldUseReplica() throws SQLException {
+        assertSame(replicaConnection, replicaRead(true));
+    }
+
+    @Test
+    void getConnection_ReadOnlyWithoutReplicaRead_ShouldUsePrimary() throws SQLException {
+        beginTransaction(true);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ReplicaReadInReadWriteTransaction_ShouldUsePrimary() throws SQLException {
+        assertSame(primaryConnection, replicaRead(false));
+    }
+
+    @Test
+    void getConnection_WhenReplicaLags_ShouldUsePrimary() throws SQLException {
+        lagMonitor.update(6);
+
+        assertSame(primaryConnection, replicaRead(true));
+        assertEquals(6, lagMonitor.getLagSeconds());
+    }
+
+    @Test
+    void getConnection_WhenReplicaRefusesConnections_ShouldFallBackAndStopUsingIt() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLTransientConnectionException("replica down"));
+
+        assertSame(primaryConnection, replicaRead(true));
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertSame(primaryConnection, replicaRead(true));
+        verify(replica, times(1)).getConnection();
+    }
+
+    @Test
+    void getConnection_AfterCommittedWrite_ShouldPinRequestToPrimaryAndSetCookieOnce() throws SQLException {
+        beginTransaction(false);
+        dataSource.getConnection();
+        commit();
+        beginTransaction(false);
+        dataSource.getConnection();
+        commit();
+
+        assertSame(primaryConnection, replicaRead(true));
+        assertEquals(1, cookiesSet.get());
+    }
+
+    @Test
+    void getConnection_AfterRolledBackWrite_ShouldKeepReadingFromReplica() throws SQLException {
+        beginTransaction(false);
+        dataSource.getConnection();
+        TransactionSynchronizationManager.clear();
+
+        assertSame(replicaConnection, replicaRead(true));
+        assertEquals(0, cookiesSet.get());
+    }
+
+    @Test
+    void getConnection_WhenClientWroteRecently_ShouldUsePrimary() throws SQLException {
+        ReplicaRoutingContext.openSession(true, cookiesSet::incrementAndGet);
+
+        assertSame(primaryConnection, replicaRead(true));
+    }
+
+    @Test
+    void lagSeconds_ShouldBeZeroWhenCaughtUpAndUnboundedWhenNothingWasReplayed() {
+        assertEquals(0, ReplicaLagMonitor.lagSeconds(3600.0, 0));
+        assertEquals(2.5, ReplicaLagMonitor.lagSeconds(2.5, 1024));
+        assertEquals(Double.POSITIVE_INFINITY, ReplicaLagMonitor.lagSeconds(null, 1024));
+    }
+
+    private Connection replicaRead(boolean readOnly) throws SQLException {
+        beginTransaction(readOnly);
+        Boolean previous = ReplicaRoutingContext.enterReplicaRead();
+        try {
+            return dataSource.getConnection();
+        } finally {
+            ReplicaRoutingContext.exitReplicaRead(previous);
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clear();
+    }
+}
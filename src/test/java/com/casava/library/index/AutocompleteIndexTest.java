@@ -0,0 +1,96 @@
+package com.casava.library.index;
+
+import com.casava.library.entity.Book;
+import com.casava.library.repository.BookRepository;
+import com.casava.library.repository.projection.BookPopularity;
+import com.casava.library.util.PrefixIndex.Entry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AutocompleteIndexTest {
+    private final UUID duneId = UUID.randomUUID();
+    private final UUID messiahId = UUID.randomUUID();
+
+    private BookRepository bookRepository;
+    private AutocompleteIndex autocompleteIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        BookPopularity dune = popularity(duneId, "Dune", "Frank Herbert", 12);
+        BookPopularity messiah = popularity(messiahId, "Dune Messiah", "Frank Herbert", 3);
+        when(bookRepository.streamPopularity()).thenAnswer(invocation -> Stream.of(dune, messiah));
+        autocompleteIndex = new AutocompleteIndex(bookRepository);
+        autocompleteIndex.rebuild();
+    }
+
+    @Test
+    void suggestions_ShouldBeRankedByLoansAndAggregatedPerAuthor() {
+        assertEquals(List.of("Dune", "Dune Messiah"), texts(autocompleteIndex.suggestTitles("du", 10)));
+        assertEquals(List.of(new Entry("Frank Herbert", 15, null)), autocompleteIndex.suggestAuthors("frank", 10));
+    }
+
+    @Test
+    void changes_ShouldShadowTheSnapshotUntilNextRebuild() {
+        Book renamed = book(duneId, "Arrakis", "Frank Herbert");
+        Book added = book(UUID.randomUUID(), "Dune Road", "Jane Doe");
+
+        autocompleteIndex.updateBook("Dune", "Frank Herbert", renamed);
+        autocompleteIndex.addBook(added);
+        autocompleteIndex.removeBook(book(messiahId, "Dune Messiah", "Frank Herbert"));
+
+        assertEquals(List.of("Dune Road"), texts(autocompleteIndex.suggestTitles("dune", 10)));
+        assertEquals(List.of(new Entry("Arrakis", 12, duneId)), autocompleteIndex.suggestTitles("arr", 10));
+        assertEquals(List.of("Jane Doe"), texts(autocompleteIndex.suggestAuthors("ja", 10)));
+    }
+
+    @Test
+    void removingTheLastBooksOfAnAuthor_ShouldStopSuggestingThemBeforeNextRebuild() {
+        autocompleteIndex.removeBook(book(messiahId, "Dune Messiah", "Frank Herbert"));
+        assertEquals(List.of("Frank Herbert"), texts(autocompleteIndex.suggestAuthors("fr", 10)));
+
+        autocompleteIndex.updateBook("Dune", "Frank Herbert", book(duneId, "Dune", "Brian Herbert"));
+
+        assertEquals(List.of(), autocompleteIndex.suggestAuthors("fr", 10));
+        assertEquals(List.of("Brian Herbert"), texts(autocompleteIndex.suggestAuthors("br", 10)));
+    }
+
+    @Test
+    void rebuild_ShouldFoldCommittedChangesIntoSnapshot() {
+        autocompleteIndex.removeBook(book(messiahId, "Dune Messiah", "Frank Herbert"));
+        when(bookRepository.streamPopularity()).thenAnswer(invocation ->
+                Stream.of(popularity(duneId, "Dune", "Frank Herbert", 12)));
+
+        autocompleteIndex.rebuild();
+
+        assertEquals(List.of("Dune"), texts(autocompleteIndex.suggestTitles("d", 10)));
+    }
+
+    private static List<String> texts(List<Entry> entries) {
+        return entries.stream().map(Entry::text).toList();
+    }
+
+    private static Book book(UUID id, String title, String author) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        return book;
+    }
+
+    private static BookPopularity popularity(UUID id, String title, String author, long loanCount) {
+        BookPopularity popularity = mock(BookPopularity.class);
+        when(popularity.getId()).thenReturn(id);
+        when(popularity.getTitle()).thenReturn(title);
+        when(popularity.getAuthor()).thenReturn(author);
+        when(popularity.getLoanCount()).thenReturn(loanCount);
+        return popularity;
+    }
+}
@@ -0,0 +1,41 @@
+package com.casava.library.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static com.casava.library.constant.Constants.DB_STATEMENTS_METRIC;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DbStatementMetricsFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DbStatementMetricsFilter filter = new DbStatementMetricsFilter(meterRegistry);
+
+    @Test
+    void doFilter_ShouldRecordStatementsPreparedDuringTheRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books/42");
+        StatementCounter statementCounter = new StatementCounter();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/books/{id}");
+            statementCounter.inspect("select 1");
+            statementCounter.inspect("select 2");
+        });
+
+        DistributionSummary summary = meterRegistry.get(DB_STATEMENTS_METRIC)
+                .tag("method", "GET").tag("uri", "/books/{id}").summary();
+        assertEquals(1, summary.count());
+        assertEquals(2, summary.totalAmount());
+    }
+
+    @Test
+    void inspect_OutsideARequest_ShouldNotCount() {
+        new StatementCounter().inspect("select 1");
+
+        assertEquals(0, StatementCounter.stop());
+    }
+}
@@ -0,0 +1,65 @@
+package com.casava.library.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long THRESHOLD = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(5_000_000_000L);
+    private final AtomicInteger databaseWaiters = new AtomicInteger();
+    private final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(
+            10, 5, 20, THRESHOLD, 3, databaseWaiters::get, clock::get);
+
+    @Test
+    void tryAcquire_BeyondTheLimit_ShouldShed() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(concurrencyLimit.tryAcquire());
+        }
+
+        assertFalse(concurrencyLimit.tryAcquire());
+        concurrencyLimit.release();
+        assertTrue(concurrencyLimit.tryAcquire());
+    }
+
+    @Test
+    void release_WhenBusyAndFast_ShouldRaiseTheLimit() {
+        for (int i = 0; i < 10; i++) {
+            concurrencyLimit.tryAcquire();
+        }
+
+        concurrencyLimit.release(1_000_000L);
+
+        assertEquals(11, concurrencyLimit.getLimit());
+    }
+
+    @Test
+    void release_WhenSlow_ShouldBackOffOncePerThreshold() {
+        concurrencyLimit.tryAcquire();
+        concurrencyLimit.tryAcquire();
+
+        concurrencyLimit.release(2 * THRESHOLD);
+        concurrencyLimit.release(2 * THRESHOLD);
+
+        assertEquals(9, concurrencyLimit.getLimit());
+    }
+
+    @Test
+    void release_WhenCallersQueueForConnections_ShouldBackOffDownToTheMinimum() {
+        databaseWaiters.set(4);
+
+        for (int i = 0; i < 20; i++) {
+            concurrencyLimit.tryAcquire();
+            concurrencyLimit.release(1_000_000L);
+            clock.addAndGet(THRESHOLD);
+        }
+
+        assertEquals(5, concurrencyLimit.getLimit());
+        assertEquals(0, concurrencyLimit.getInFlight());
+    }
+}
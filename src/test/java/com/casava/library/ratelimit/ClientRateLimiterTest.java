@@ -0,0 +1,44 @@
+package com.casava.library.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final ClientRateLimiter rateLimiter = new ClientRateLimiter(1 << 10, 10, 3, clock::get);
+
+    @Test
+    void tryAcquire_ShouldAdmitTheBurstThenReturnTheWaitForTheNextToken() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("key:a"));
+        }
+
+        assertEquals(100_000_000L, rateLimiter.tryAcquire("key:a"));
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillAtTheConfiguredRate() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("key:a");
+        }
+
+        clock.addAndGet(100_000_000L);
+
+        assertEquals(0, rateLimiter.tryAcquire("key:a"));
+        assertTrue(rateLimiter.tryAcquire("key:a") > 0);
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepSeparateBudgetsPerClient() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("key:a");
+        }
+
+        assertTrue(rateLimiter.tryAcquire("key:a") > 0);
+        assertEquals(0, rateLimiter.tryAcquire("ip:10.0.0.7"));
+    }
+}
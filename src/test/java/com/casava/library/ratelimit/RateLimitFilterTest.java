@@ -0,0 +1,130 @@
+package com.casava.library.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.casava.library.constant.Constants.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ClientRateLimiter rateLimiter = new ClientRateLimiter(1 << 10, 1, 2, System::nanoTime);
+    private final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(
+            5, 5, 5, 1_000_000_000L, 10, () -> 0, System::nanoTime);
+    private final RateLimitFilter filter = new RateLimitFilter(rateLimiter, Set.of("k1", "k2", "k3", "k4"),
+            concurrencyLimit, new ObjectMapper(), meterRegistry);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final FilterChain chain = (req, res) -> calls.incrementAndGet();
+
+    @Test
+    void doFilter_OverTheClientBudget_ShouldAnswer429WithoutCallingTheChain() throws Exception {
+        filter.doFilter(request("/books", "k1"), new MockHttpServletResponse(), chain);
+        filter.doFilter(request("/books", "k1"), new MockHttpServletResponse(), chain);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("/books", "k1"), response, chain);
+
+        assertEquals(2, calls.get());
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("\"internalCode\":\"CASAVA_LIB_010\""));
+        assertTrue(response.getContentAsString().contains(RATE_LIMITED_MESSAGE));
+        assertEquals(1, meterRegistry.get(REQUESTS_REJECTED_METRIC).tag("reason", "rate-limit").counter().count());
+        assertEquals(0, concurrencyLimit.getInFlight());
+    }
+
+    @Test
+    void doFilter_ShouldKeyAnonymousClientsByAddress() throws Exception {
+        MockHttpServletRequest fromA = new MockHttpServletRequest("GET", "/books");
+        fromA.setRemoteAddr("10.0.0.1");
+        MockHttpServletRequest fromB = new MockHttpServletRequest("GET", "/books");
+        fromB.setRemoteAddr("10.0.0.2");
+
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(fromA, new MockHttpServletResponse(), chain);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(fromB, response, chain);
+
+        assertEquals(3, calls.get());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void doFilter_WithUnknownApiKeys_ShouldKeyTheClientByAddress() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            filter.doFilter(request("/books", UUID.randomUUID().toString()), new MockHttpServletResponse(), chain);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("/books", UUID.randomUUID().toString()), response, chain);
+
+        assertEquals(2, calls.get());
+        assertEquals(429, response.getStatus());
+    }
+
+    @Test
+    void doFilter_WithAKnownApiKey_ShouldNotShareTheAddressBudget() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(new MockHttpServletRequest("GET", "/books"), new MockHttpServletResponse(), chain);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("/books", "k1"), response, chain);
+
+        assertEquals(3, calls.get());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void doFilter_WhenTheConcurrencyLimitIsReached_ShouldShedLoad() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            concurrencyLimit.tryAcquire();
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("/loans", "k2"), response, chain);
+
+        assertEquals(0, calls.get());
+        assertEquals(429, response.getStatus());
+        assertTrue(response.getContentAsString().contains(OVERLOADED_MESSAGE));
+        assertEquals(1, meterRegistry.get(REQUESTS_REJECTED_METRIC).tag("reason", "overload").counter().count());
+    }
+
+    @Test
+    void doFilter_ShouldNotLimitActuatorEndpoints() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            filter.doFilter(request("/actuator/health", "k3"), new MockHttpServletResponse(), chain);
+        }
+
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    void doFilter_ForAnAsyncRequest_ShouldHoldTheSlotUntilItCompletes() throws Exception {
+        MockHttpServletRequest request = request("/books/export", "k4");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(1, concurrencyLimit.getInFlight());
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertEquals(0, concurrencyLimit.getInFlight());
+    }
+
+    private static MockHttpServletRequest request(String uri, String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.addHeader(API_KEY_HEADER, apiKey);
+        return request;
+    }
+}
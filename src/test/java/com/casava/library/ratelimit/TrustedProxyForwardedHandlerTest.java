@@ -0,0 +1,47 @@
+package com.casava.library.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Requests come from 127.0.0.1, so the loopback pattern stands for a proxy in front of the service.
+class TrustedProxyForwardedHandlerTest {
+    private static final String LOOPBACK = "127(\\.\\d{1,3}){3}";
+    private static final String PRIVATE_NETWORK = "10(\\.\\d{1,3}){3}";
+
+    @Test
+    void apply_FromATrustedProxy_ShouldTakeTheFirstHopNoTrustedProxyAdded() {
+        assertEquals("203.0.113.7", remoteAddressSeen(LOOPBACK + "|" + PRIVATE_NETWORK,
+                "198.51.100.1, 203.0.113.7, 10.0.0.5"));
+    }
+
+    @Test
+    void apply_FromAnUntrustedPeer_ShouldIgnoreTheHeader() {
+        assertEquals("127.0.0.1", remoteAddressSeen(PRIVATE_NETWORK, "203.0.113.7"));
+    }
+
+    @Test
+    void apply_WhenEveryHopIsTrusted_ShouldKeepThePeer() {
+        assertEquals("127.0.0.1", remoteAddressSeen(LOOPBACK + "|" + PRIVATE_NETWORK, "10.0.0.5"));
+    }
+
+    private static String remoteAddressSeen(String trustedProxies, String forwardedFor) {
+        DisposableServer server = HttpServer.create().host("127.0.0.1").port(0)
+                .forwarded(new TrustedProxyForwardedHandler(Pattern.compile(trustedProxies)))
+                .handle((request, response) -> response.sendString(Mono.just(request.remoteAddress().getHostString())))
+                .bindNow();
+        try {
+            return HttpClient.create().headers(headers -> headers.add("X-Forwarded-For", forwardedFor))
+                    .get().uri("http://127.0.0.1:" + server.port() + "/")
+                    .responseContent().aggregate().asString().block();
+        } finally {
+            server.disposeNow();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.casava.library.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import com.casava.library.repository.projection.BookSearchHit;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.casava.library.util.Pagination.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Migrates an embedded PostgreSQL with Flyway, so the context only starts if the entities validate against the
+// migrated schema, then checks on seeded and analyzed tables that the SQL Hibernate generates for the hot repository
+// methods is planned on their indexes.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.casava.library.repository.QueryPlanTest$GeneratedSql")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+class QueryPlanTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 1);
+    private static final int PAGE_SIZE = 20;
+    // An unset optional filter: typed, since PostgreSQL cannot infer a type for a parameter only tested with "is null".
+    private static final SqlParameterValue UNSET_FILTER = new SqlParameterValue(Types.VARCHAR, null);
+    // A null PostgreSQL types from the column it is compared with.
+    private static final SqlParameterValue NULL = new SqlParameterValue(Types.OTHER, null);
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UUID userId;
+    private UUID bookId;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("insert into users (id, name, email, membership_date) " +
+                "select md5('user' || n)::uuid, 'User ' || n, 'user' || n || '@example.com', date '2020-01-01' + n % 1000 " +
+                "from generate_series(1, 1000) n");
+        jdbcTemplate.update("insert into books (id, title, author, published_year, isbn, copies_available) " +
+                "select md5('book' || n)::uuid, 'Title ' || n, 'Author ' || n % 2000, 1900 + n % 125, " +
+                "'978' || lpad(n::text, 10, '0'), 3 from generate_series(1, 20000) n");
+        jdbcTemplate.update("insert into loans (id, book_id, user_id, loan_date, return_date) " +
+                "select gen_random_uuid(), md5('book' || n % 20000 + 1)::uuid, md5('user' || n % 1000 + 1)::uuid, " +
+                "date '2024-01-01' + n % 365, case when n % 10 = 0 then null else date '2024-01-01' + n % 365 + 7 end " +
+                "from generate_series(1, 100000) n");
+        jdbcTemplate.execute("vacuum analyze");
+        userId = jdbcTemplate.queryForObject("select md5('user42')::uuid", UUID.class);
+        bookId = jdbcTemplate.queryForObject("select md5('book42')::uuid", UUID.class);
+    }
+
+    @Test
+    void loanHistoryOfUser_ShouldUseUserLoanDateIndex() {
+        String sql = generatedSql(() ->
+                loanRepository.findLoanedBooksBefore(userId, LATEST_LOAN_DATE, LAST_ID, lookAhead(PAGE_SIZE)));
+        assertPlannedOn("loans_user_loan_date_idx", sql,
+                userId, LATEST_LOAN_DATE, LATEST_LOAN_DATE, LAST_ID, PAGE_SIZE + 1);
+    }
+
+    @Test
+    void loansOfBook_ShouldUseBookIndex() {
+        String sql = generatedSql(() -> loanRepository.findPageAfter(FIRST_ID, null, bookId, null, lookAhead(PAGE_SIZE)));
+        assertPlannedOn("loans_book_id_idx", sql,
+                FIRST_ID, UNSET_FILTER, NULL, bookId, bookId, UNSET_FILTER, NULL, NULL, PAGE_SIZE + 1);
+    }
+
+    @Test
+    void openLoansOfUser_ShouldUsePartialUserIndex() {
+        String sql = generatedSql(() ->
+                loanRepository.findOpenByUserAfter(userId, TODAY, EARLIEST_LOAN_DATE, FIRST_ID, lookAhead(PAGE_SIZE)));
+        assertPlannedOn("loans_open_user_idx", sql, userId, TODAY, EARLIEST_LOAN_DATE, FIRST_ID, PAGE_SIZE + 1);
+    }
+
+    @Test
+    void overdueLoans_ShouldUsePartialLoanDateIndex() {
+        String sql = generatedSql(() -> loanRepository.findOpenAfter(TODAY, EARLIEST_LOAN_DATE, FIRST_ID, lookAhead(PAGE_SIZE)));
+        assertPlannedOn("loans_open_loan_date_idx", sql, TODAY, EARLIEST_LOAN_DATE, FIRST_ID, PAGE_SIZE + 1);
+    }
+
+    @Test
+    void isbnAndEmailLookups_ShouldUseUniqueIndexes() {
+        assertPlannedOn("books_isbn_key", generatedSql(() -> bookRepository.existsByIsbn("9780000000042")),
+                "9780000000042", 1);
+        assertPlannedOn("users_email_key", generatedSql(() -> userRepository.existsByEmail("user42@example.com")),
+                "user42@example.com", 1);
+    }
+
+    @Test
+    void fullTextSearch_ShouldUseSearchDocumentIndex() {
+        String sql = generatedSql(() -> bookRepository.searchFullText("4242", HIGHEST_SCORE, FIRST_ID, lookAhead(PAGE_SIZE)));
+        assertPlannedOn("books_search_document_idx", sql, "4242", HIGHEST_SCORE, HIGHEST_SCORE, FIRST_ID, PAGE_SIZE + 1);
+    }
+
+    // 1,500 books repeat the word between one and five times, and the one repeating it most is inserted last, so
+    // neither a scan-order cut nor the checkouts made between pages may change what is served.
+    @Test
+    void pagingThroughACommonWord_WhileBooksAreCheckedOut_ShouldServeEveryMatchOnceInRankOrder() {
+        jdbcTemplate.update("insert into books (id, title, author, published_year, isbn, copies_available) " +
+                "select gen_random_uuid(), 'Saga' || repeat(' saga', n % 5), 'Author', 2000, 'saga' || n, 3 " +
+                "from generate_series(1, 1499) n");
+        UUID best = jdbcTemplate.queryForObject("insert into books (id, title, author, published_year, isbn, " +
+                "copies_available) values (gen_random_uuid(), 'Saga saga saga saga saga saga', 'Author', 2000, " +
+                "'saga-best', 3) returning id", UUID.class);
+
+        List<BookSearchHit> served = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
+        double beforeScore = HIGHEST_SCORE;
+        UUID afterId = FIRST_ID;
+        List<BookSearchHit> page;
+        do {
+            page = bookRepository.searchFullText("saga", beforeScore, afterId, PageRequest.ofSize(100));
+            for (BookSearchHit hit : page) {
+                assertTrue(seen.add(hit.getId()), () -> "served twice: " + hit.getId());
+                served.add(hit);
+                jdbcTemplate.update("update books set copies_available = copies_available - 1, " +
+                        "loan_count = loan_count + 1, version = version + 1 where id = ?", hit.getId());
+            }
+            if (!page.isEmpty()) {
+                beforeScore = page.get(page.size() - 1).getScore();
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (!page.isEmpty());
+
+        assertEquals(1500, served.size());
+        assertEquals(best, served.get(0).getId());
+        for (int i = 1; i < served.size(); i++) {
+            assertTrue(served.get(i).getScore() <= served.get(i - 1).getScore());
+        }
+    }
+
+    private String generatedSql(Runnable repositoryCall) {
+        GeneratedSql.STATEMENTS.clear();
+        repositoryCall.run();
+        assertEquals(1, GeneratedSql.STATEMENTS.size(), () -> "expected one statement: " + GeneratedSql.STATEMENTS);
+        return GeneratedSql.STATEMENTS.get(0);
+    }
+
+    // The parameters are bound in the order Hibernate renders them, once per occurrence of a named parameter.
+    private void assertPlannedOn(String index, String sql, Object... params) {
+        assertEquals(sql.chars().filter(c -> c == '?').count(), params.length, () -> "parameters of " + sql);
+        String plan = String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class, params));
+        assertTrue(plan.contains(" " + index + " "), () -> "expected a scan on " + index + ":\n" + sql + "\n" + plan);
+    }
+
+    // Records the statements Hibernate renders for the repository methods, so their plans are checked rather than
+    // those of hand-written copies.
+    public static class GeneratedSql implements StatementInspector {
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
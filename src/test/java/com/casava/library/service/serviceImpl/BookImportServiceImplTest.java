@@ -0,0 +1,188 @@
+package com.casava.library.service.serviceImpl;
+
+import com.casava.library.dto.response.BookImportErrorDTO;
+import com.casava.library.dto.response.BookImportResponseDTO;
+import com.casava.library.entity.Book;
+import com.casava.library.index.AutocompleteIndex;
+import com.casava.library.index.UniqueKeyIndex;
+import com.casava.library.repository.BookRepository;
+import com.casava.library.service.BookImportService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=500",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+@Import({BookImportServiceImpl.class, UniqueKeyIndex.class, AutocompleteIndex.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookImportServiceImplTest {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UniqueKeyIndex uniqueKeyIndex;
+
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Book existing = new Book();
+        existing.setTitle("Already Shelved");
+        existing.setAuthor("Someone");
+        existing.setPublishedYear(1999);
+        existing.setIsbn(isbn(0));
+        existing.setCopiesAvailable(1);
+        bookRepository.save(existing);
+        uniqueKeyIndex.addIsbn(existing.getIsbn());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void importJson_insertsValidRowsInBatchesAndReportsRejectedOnes() {
+        int rows = 1200;
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= rows; i++) {
+            json.append(bookJson("Book " + i, isbn(i), 2)).append(',');
+        }
+        json.append(bookJson("Existing", isbn(0), 1)).append(',');
+        json.append(bookJson("Repeated", isbn(1), 1)).append(',');
+        json.append(bookJson("", "not-an-isbn", 0)).append(']');
+
+        BookImportResponseDTO report = bookImportService.importJson(stream(json.toString()));
+
+        assertEquals(rows + 3, report.getReceived());
+        assertEquals(rows, report.getImported());
+        assertEquals(3, report.getRejected());
+        assertEquals(rows + 1, bookRepository.count());
+        assertTrue(report.getErrors().stream().anyMatch(error -> isbn(0).equals(error.getIsbn())
+                && error.getErrors().containsKey("isbn")));
+        BookImportErrorDTO invalid = report.getErrors().stream()
+                .filter(error -> "not-an-isbn".equals(error.getIsbn())).findFirst().orElseThrow();
+        assertEquals(rows + 3, invalid.getRow());
+        assertTrue(invalid.getErrors().keySet().containsAll(java.util.List.of("title", "isbn", "copiesAvailable")));
+        assertTrue(statistics.getPrepareStatementCount() < 20,
+                "expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void importJson_fallsBackToRowInsertsWhenAnIsbnIsTakenBehindTheIndex() {
+        Book concurrent = new Book();
+        concurrent.setTitle("Inserted Elsewhere");
+        concurrent.setAuthor("Someone");
+        concurrent.setPublishedYear(2020);
+        concurrent.setIsbn(isbn(2));
+        concurrent.setCopiesAvailable(1);
+        bookRepository.save(concurrent);
+        String json = "[" + bookJson("One", isbn(1), 1) + "," + bookJson("Two", isbn(2), 1) + ","
+                + bookJson("Three", isbn(3), 1) + "]";
+
+        BookImportResponseDTO report = bookImportService.importJson(stream(json));
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertEquals(isbn(2), report.getErrors().get(0).getIsbn());
+        assertEquals(4, bookRepository.count());
+        assertEquals(1, autocompleteIndex.suggestTitles("thr", 10).size());
+        assertEquals(0, autocompleteIndex.suggestTitles("two", 10).size());
+    }
+
+    @Test
+    void importJson_keepsRowsReadBeforeMalformedInput() {
+        String json = "[" + bookJson("First", isbn(1), 1) + "," + bookJson("Second", isbn(2), 1) + ",{\"title\":";
+
+        BookImportResponseDTO report = bookImportService.importJson(stream(json));
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertTrue(report.getErrors().get(0).getErrors().containsKey("body"));
+        assertTrue(bookRepository.existsByIsbn(isbn(2)));
+    }
+
+    @Test
+    void importJson_rejectsBodyThatIsNotAnArray() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bookImportService.importJson(stream(bookJson("Lonely", isbn(1), 1))));
+    }
+
+    @Test
+    void importCsv_handlesQuotedFieldsAndBadNumbers() {
+        String csv = """
+                isbn,title,author,publishedYear,copiesAvailable
+                %s,"Eats, Shoots ""and"" Leaves",Lynne Truss,2003,4
+                %s,Broken Year,Someone,two thousand,1
+
+                %s,Plain,Author,2010,1
+                """.formatted(isbn(1), isbn(2), isbn(3));
+
+        BookImportResponseDTO report = bookImportService.importCsv(stream(csv));
+
+        assertEquals(3, report.getReceived());
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertEquals(2, report.getErrors().get(0).getRow());
+        assertTrue(report.getErrors().get(0).getErrors().containsKey("publishedYear"));
+        assertEquals("Eats, Shoots \"and\" Leaves", bookRepository.findAll().stream()
+                .filter(book -> isbn(1).equals(book.getIsbn())).findFirst().orElseThrow().getTitle());
+    }
+
+    @Test
+    void importCsv_rejectsHeaderWithoutRequiredColumns() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bookImportService.importCsv(stream("title,author\nA,B\n")));
+    }
+
+    private static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+
+    private static String bookJson(String title, String isbn, int copies) {
+        return """
+                {"title":"%s","author":"Author","publishedYear":2001,"isbn":"%s","copiesAvailable":%d}"""
+                .formatted(title, isbn, copies);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,179 @@
+package com.casava.library.service.serviceImpl;
+
+import com.casava.library.config.CacheConfig;
+import com.casava.library.dto.request.BookRequestDTO;
+import com.casava.library.entity.Book;
+import com.casava.library.index.AutocompleteIndex;
+import com.casava.library.index.UniqueKeyIndex;
+import com.casava.library.repository.BookRepository;
+import com.casava.library.service.BookImportService;
+import com.casava.library.service.BookJsonService;
+import com.casava.library.service.BookService;
+import com.casava.library.util.VersionedJson;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.casava.library.constant.Constants.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(classes = {BookServiceImpl.class, BookJsonServiceImpl.class, BookImportServiceImpl.class, CacheConfig.class})
+@ImportAutoConfiguration({CacheAutoConfiguration.class, JacksonAutoConfiguration.class})
+class BookServiceImplCacheTest {
+
+    @MockBean
+    private BookRepository bookRepository;
+
+    @MockBean
+    private UniqueKeyIndex uniqueKeyIndex;
+
+    @MockBean
+    private AutocompleteIndex autocompleteIndex;
+
+    @MockBean
+    private EntityManager entityManager;
+
+    @MockBean
+    private Validator validator;
+
+    @MockBean
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookJsonService bookJsonService;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private UUID testId;
+    private Book testBook;
+
+    @BeforeEach
+    void setUp() {
+        List.of(BOOK_CACHE, BOOK_JSON_CACHE, BOOK_PAGE_JSON_CACHE).forEach(name -> cacheManager.getCache(name).clear());
+
+        testId = UUID.randomUUID();
+        testBook = new Book();
+        testBook.setId(testId);
+        testBook.setTitle("Test Book");
+        testBook.setAuthor("Test Author");
+        testBook.setPublishedYear(2021);
+        testBook.setIsbn("1234567890");
+        testBook.setCopiesAvailable(5);
+        when(bookRepository.findById(testId)).thenReturn(Optional.of(testBook));
+    }
+
+    @Test
+    void getBookById_CalledRepeatedly_ShouldHitRepositoryOnce() {
+        bookService.getBookById(testId);
+        bookService.getBookById(testId);
+
+        verify(bookRepository, times(1)).findById(testId);
+    }
+
+    @Test
+    void updateBook_ShouldInvalidateCachedBook() {
+        BookRequestDTO bookRequestDTO = new BookRequestDTO();
+        bookRequestDTO.setTitle("Updated Title");
+        bookRequestDTO.setAuthor("Test Author");
+        bookRequestDTO.setPublishedYear(2021);
+        bookRequestDTO.setIsbn("1234567890");
+        bookRequestDTO.setCopiesAvailable(5);
+
+        bookService.getBookById(testId);
+        bookService.updateBook(testId, bookRequestDTO, null);
+
+        assertEquals("Updated Title", bookService.getBookById(testId).getTitle());
+        verify(bookRepository, times(3)).findById(testId);
+    }
+
+    @Test
+    void getBookJson_AfterUpdate_ShouldCarryTheVersionOfTheEncodedRow() {
+        BookRequestDTO bookRequestDTO = new BookRequestDTO();
+        bookRequestDTO.setTitle("Updated Title");
+        bookRequestDTO.setAuthor("Test Author");
+        bookRequestDTO.setPublishedYear(2021);
+        bookRequestDTO.setIsbn("1234567890");
+        bookRequestDTO.setCopiesAvailable(5);
+
+        assertEquals(0L, bookJsonService.getBookById(testId).version());
+        bookService.updateBook(testId, bookRequestDTO, null);
+        testBook.setVersion(1L);
+
+        VersionedJson updated = bookJsonService.getBookById(testId);
+        assertEquals(1L, updated.version());
+        assertTrue(new String(updated.json()).contains("\"title\":\"Updated Title\""));
+        assertFalse(new String(updated.json()).contains("version"));
+    }
+
+    @Test
+    void deleteBook_ShouldInvalidateCachedBook() {
+        bookService.getBookById(testId);
+        bookService.deleteBook(testId);
+
+        assertNull(cacheManager.getCache(BOOK_CACHE).get(testId));
+    }
+
+    @Test
+    void getBookJson_CalledRepeatedly_ShouldReuseEncodedBytes() {
+        VersionedJson first = bookJsonService.getBookById(testId);
+        VersionedJson second = bookJsonService.getBookById(testId);
+
+        assertSame(first, second);
+        assertTrue(new String(first.json()).contains("\"title\":\"Test Book\""));
+        verify(bookRepository, times(1)).findById(testId);
+    }
+
+    @Test
+    void updateBook_ShouldInvalidateEncodedBookAndPages() {
+        when(bookRepository.findPageAfter(any(), any(), any(), any())).thenReturn(List.of(testBook));
+        BookRequestDTO bookRequestDTO = new BookRequestDTO();
+        bookRequestDTO.setTitle("Updated Title");
+        bookRequestDTO.setAuthor("Test Author");
+        bookRequestDTO.setPublishedYear(2021);
+        bookRequestDTO.setIsbn("1234567890");
+        bookRequestDTO.setCopiesAvailable(5);
+
+        bookJsonService.getBookById(testId);
+        bookJsonService.getAllBooks(null, null, null, 20);
+        bookService.updateBook(testId, bookRequestDTO, null);
+
+        assertNull(cacheManager.getCache(BOOK_JSON_CACHE).get(testId));
+        assertTrue(new String(bookJsonService.getAllBooks(null, null, null, 20).json()).contains("Updated Title"));
+        verify(bookRepository, times(2)).findPageAfter(any(), any(), any(), any());
+    }
+
+    @Test
+    void importJson_ShouldInvalidateEncodedPages() {
+        when(bookRepository.findPageAfter(any(), any(), any(), any())).thenReturn(List.of(testBook));
+
+        bookJsonService.getAllBooks(null, null, null, 20);
+        bookImportService.importJson(new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)));
+
+        bookJsonService.getAllBooks(null, null, null, 20);
+        verify(bookRepository, times(2)).findPageAfter(any(), any(), any(), any());
+    }
+}
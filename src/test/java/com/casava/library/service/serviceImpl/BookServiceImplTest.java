@@ -1,19 +1,39 @@
 package com.casava.library.service.serviceImpl;
 
 import com.casava.library.dto.request.BookRequestDTO;
+import com.casava.library.dto.response.AutocompleteResponseDTO;
 import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
+import com.casava.library.dto.response.SuggestionDTO;
 import com.casava.library.entity.Book;
 import com.casava.library.exception.ResourceAlreadyExistException;
+import com.casava.library.exception.PreconditionFailedException;
 import com.casava.library.exception.ResourceNotFoundException;
+import com.casava.library.index.AutocompleteIndex;
+import com.casava.library.index.UniqueKeyIndex;
 import com.casava.library.repository.BookRepository;
+import com.casava.library.repository.projection.BookSearchHit;
+import com.casava.library.util.Pagination;
+import com.casava.library.util.PrefixIndex;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
+import java.sql.SQLException;
 import java.util.*;
+import java.util.stream.Stream;
 
+import static com.casava.library.constant.Constants.BOOK_ISBN_CONSTRAINT;
+import static com.casava.library.constant.Constants.MAX_SEARCH_RESULTS;
+import static com.casava.library.constant.Constants.MAX_SUGGESTIONS;
+import static com.casava.library.constant.Constants.OPTIMISTIC_RETRY_ATTEMPTS;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -22,6 +42,15 @@ class BookServiceImplTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private UniqueKeyIndex uniqueKeyIndex;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -51,14 +80,102 @@ class BookServiceImplTest {
     }
 
     @Test
-    void getAllBooks_ShouldReturnListOfBookResponseDTOs() {
-        when(bookRepository.findAll()).thenReturn(Collections.singletonList(testBook));
+    void getAllBooks_ShouldReturnPageOfBookResponseDTOs() {
+        when(bookRepository.findPageAfter(any(), any(), any(), any())).thenReturn(Collections.singletonList(testBook));
+
+        CursorPageResponseDTO<BookResponseDTO> result = bookService.getAllBooks(null, null, null, 20);
+
+        assertEquals(1, result.getSize());
+        assertEquals(testBook.getTitle(), result.getItems().get(0).getTitle());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getAllBooks_WithMoreRowsThanPageSize_ShouldReturnNextCursor() {
+        Book nextBook = new Book();
+        nextBook.setId(UUID.randomUUID());
+        when(bookRepository.findPageAfter(any(), any(), any(), any())).thenReturn(List.of(testBook, nextBook));
+
+        CursorPageResponseDTO<BookResponseDTO> result = bookService.getAllBooks(null, null, null, 1);
+
+        assertEquals(1, result.getSize());
+        assertTrue(result.isHasNext());
+        assertNotNull(result.getNextCursor());
+
+        bookService.getAllBooks(null, null, result.getNextCursor(), 1);
+        verify(bookRepository).findPageAfter(eq(testId), any(), any(), any());
+    }
+
+    @Test
+    void searchBooks_WithFullTextMatches_ShouldPageOnScoreAndId() {
+        BookSearchHit first = searchHit(testId, 0.5);
+        BookSearchHit second = searchHit(UUID.randomUUID(), 0.25);
+        when(bookRepository.searchFullText(eq("test book"), anyDouble(), any(), any())).thenReturn(List.of(first, second));
+
+        CursorPageResponseDTO<BookResponseDTO> result = bookService.searchBooks("  test book ", null, 1);
+
+        assertEquals(testId, result.getItems().get(0).getId());
+        assertTrue(result.isHasNext());
+        verify(bookRepository, never()).searchSimilar(any(), anyDouble(), any(), any());
+
+        bookService.searchBooks("test book", result.getNextCursor(), 1);
+        verify(bookRepository).searchFullText("test book", 0.5, testId, Pagination.lookAhead(1));
+    }
+
+    @Test
+    void searchBooks_WithoutFullTextMatches_ShouldFallBackToSimilarityAndKeepItInTheCursor() {
+        when(bookRepository.searchFullText(any(), anyDouble(), any(), any())).thenReturn(List.of());
+        List<BookSearchHit> similar = List.of(searchHit(testId, 0.6), searchHit(UUID.randomUUID(), 0.5));
+        when(bookRepository.searchSimilar(eq("tset"), anyDouble(), any(), any())).thenReturn(similar);
 
-        List<BookResponseDTO> result = bookService.getAllBooks();
+        CursorPageResponseDTO<BookResponseDTO> result = bookService.searchBooks("tset", null, 1);
 
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
-        assertEquals(testBook.getTitle(), result.get(0).getTitle());
+        assertEquals(testBook.getTitle(), result.getItems().get(0).getTitle());
+        bookService.searchBooks("tset", result.getNextCursor(), 1);
+        verify(bookRepository).searchSimilar("tset", 0.6, testId, Pagination.lookAhead(1));
+        verify(bookRepository, times(1)).searchFullText(any(), anyDouble(), any(), any());
+    }
+
+    @Test
+    void searchBooks_WithBlankQueryOrForeignCursor_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> bookService.searchBooks(" ", null, 20));
+        assertThrows(IllegalArgumentException.class, () -> bookService.searchBooks("a".repeat(201), null, 20));
+        String idCursor = Pagination.encodeCursor(testId);
+        assertThrows(IllegalArgumentException.class, () -> bookService.searchBooks("test", idCursor, 20));
+        String unknownMode = Pagination.encodeCursor("exact", 1.0, testId, 20);
+        assertThrows(IllegalArgumentException.class, () -> bookService.searchBooks("test", unknownMode, 20));
+    }
+
+    @Test
+    void searchBooks_ReachingTheResultCap_ShouldServeTheRestAndStop() {
+        List<BookSearchHit> hits = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            hits.add(searchHit(UUID.randomUUID(), 0.1));
+        }
+        when(bookRepository.searchFullText(any(), anyDouble(), any(), any())).thenReturn(hits);
+        String cursor = Pagination.encodeCursor("text", 0.2, testId, MAX_SEARCH_RESULTS - 10);
+
+        CursorPageResponseDTO<BookResponseDTO> result = bookService.searchBooks("test", cursor, 20);
+
+        verify(bookRepository).searchFullText("test", 0.2, testId, Pagination.lookAhead(10));
+        assertEquals(10, result.getSize());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+    }
+
+    private BookSearchHit searchHit(UUID id, double score) {
+        BookSearchHit hit = mock(BookSearchHit.class);
+        when(hit.getId()).thenReturn(id);
+        when(hit.getTitle()).thenReturn(testBook.getTitle());
+        when(hit.getScore()).thenReturn(score);
+        return hit;
+    }
+
+    @Test
+    void getAllBooks_WithInvalidPageSizeOrCursor_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> bookService.getAllBooks(null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> bookService.getAllBooks(null, null, "not-a-cursor", 20));
     }
 
     @Test
@@ -91,41 +208,154 @@ class BookServiceImplTest {
 
     @Test
     void addBook_WithExistingIsbn_ShouldThrowResourceAlreadyExistException() {
+        when(uniqueKeyIndex.mightContainIsbn(anyString())).thenReturn(true);
         when(bookRepository.existsByIsbn(anyString())).thenReturn(true);
 
         assertThrows(ResourceAlreadyExistException.class, () -> bookService.addBook(testBookRequestDTO));
     }
 
+    @Test
+    void addBook_WithIsbnUnknownToIndex_ShouldSkipExistenceQuery() {
+        when(uniqueKeyIndex.mightContainIsbn(anyString())).thenReturn(false);
+        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+
+        bookService.addBook(testBookRequestDTO);
+
+        verify(bookRepository, never()).existsByIsbn(anyString());
+        verify(uniqueKeyIndex).addIsbn(testBook.getIsbn());
+    }
+
+    @Test
+    void addBook_WhenUniqueConstraintRejectsInsert_ShouldThrowResourceAlreadyExistException() {
+        when(uniqueKeyIndex.mightContainIsbn(anyString())).thenReturn(false);
+        when(bookRepository.save(any(Book.class))).thenThrow(integrityViolation(BOOK_ISBN_CONSTRAINT));
+
+        assertThrows(ResourceAlreadyExistException.class, () -> bookService.addBook(testBookRequestDTO));
+    }
+
+    @Test
+    void addBook_WhenAnotherConstraintRejectsInsert_ShouldRethrowIt() {
+        when(uniqueKeyIndex.mightContainIsbn(anyString())).thenReturn(false);
+        DataIntegrityViolationException notNull = integrityViolation(null);
+        when(bookRepository.save(any(Book.class))).thenThrow(notNull);
+
+        assertSame(notNull, assertThrows(DataIntegrityViolationException.class,
+                () -> bookService.addBook(testBookRequestDTO)));
+    }
+
     @Test
     void updateBook_WithValidIdAndData_ShouldReturnUpdatedBookResponseDTO() {
         when(bookRepository.findById(testId)).thenReturn(Optional.of(testBook));
         when(bookRepository.save(any(Book.class))).thenReturn(testBook);
 
-        BookResponseDTO result = bookService.updateBook(testId, testBookRequestDTO);
+        BookResponseDTO result = bookService.updateBook(testId, testBookRequestDTO, null);
 
         assertNotNull(result);
         assertEquals(testBookRequestDTO.getTitle(), result.getTitle());
     }
 
+    @Test
+    void updateBook_ShouldPassPreviousTitleAndAuthorToAutocompleteIndex() {
+        testBook.setTitle("Old Title");
+        testBook.setAuthor("Old Author");
+        when(bookRepository.findById(testId)).thenReturn(Optional.of(testBook));
+
+        bookService.updateBook(testId, testBookRequestDTO, null);
+
+        verify(autocompleteIndex).updateBook("Old Title", "Old Author", testBook);
+        assertEquals("Test Book", testBook.getTitle());
+    }
+
+    @Test
+    void updateBook_WhenConcurrentWriteWins_ShouldRetryFromFreshRead() {
+        when(bookRepository.findById(testId)).thenReturn(Optional.of(testBook));
+        when(bookRepository.save(any(Book.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Book.class, testId))
+                .thenReturn(testBook);
+
+        BookResponseDTO result = bookService.updateBook(testId, testBookRequestDTO, null);
+
+        assertEquals(testBookRequestDTO.getTitle(), result.getTitle());
+        verify(bookRepository, times(2)).findById(testId);
+        verify(autocompleteIndex, times(1)).updateBook(any(), any(), eq(testBook));
+    }
+
+    @Test
+    void updateBook_WhenConflictsPersist_ShouldGiveUpAfterBoundedAttempts() {
+        when(bookRepository.findById(testId)).thenReturn(Optional.of(testBook));
+        when(bookRepository.save(any(Book.class))).thenThrow(new ObjectOptimisticLockingFailureException(Book.class, testId));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> bookService.updateBook(testId, testBookRequestDTO, null));
+        verify(bookRepository, times(OPTIMISTIC_RETRY_ATTEMPTS)).save(any(Book.class));
+    }
+
+    @Test
+    void updateBook_WithStaleExpectedVersion_ShouldFailThePreconditionWithoutSaving() {
+        testBook.setVersion(3);
+        when(bookRepository.findById(testId)).thenReturn(Optional.of(testBook));
+
+        assertThrows(PreconditionFailedException.class, () -> bookService.updateBook(testId, testBookRequestDTO, 2L));
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
+    @Test
+    void autocomplete_ShouldMapTitleAndAuthorSuggestions() {
+        when(autocompleteIndex.suggestTitles("tes", 5)).thenReturn(List.of(new PrefixIndex.Entry("Test Book", 7, testId)));
+        when(autocompleteIndex.suggestAuthors("tes", 5)).thenReturn(List.of(new PrefixIndex.Entry("Test Author", 9, null)));
+
+        AutocompleteResponseDTO result = bookService.autocomplete("  tes", 5);
+
+        assertEquals(new SuggestionDTO("Test Book", testId, 7), result.getTitles().get(0));
+        assertEquals(new SuggestionDTO("Test Author", null, 9), result.getAuthors().get(0));
+    }
+
+    @Test
+    void autocomplete_ShouldCapLimitAndRejectBlankPrefix() {
+        bookService.autocomplete("a", 1000);
+
+        verify(autocompleteIndex).suggestTitles("a", MAX_SUGGESTIONS);
+        assertThrows(IllegalArgumentException.class, () -> bookService.autocomplete(" ", 10));
+        assertThrows(IllegalArgumentException.class, () -> bookService.autocomplete("a", 0));
+    }
+
     @Test
     void updateBook_WithInvalidId_ShouldThrowResourceNotFoundException() {
         when(bookRepository.findById(testId)).thenReturn(Optional.empty());
 
-        assertThrows(ResourceNotFoundException.class, () -> bookService.updateBook(testId, testBookRequestDTO));
+        assertThrows(ResourceNotFoundException.class, () -> bookService.updateBook(testId, testBookRequestDTO, null));
     }
 
     @Test
     void deleteBook_WithValidId_ShouldDeleteBook() {
-        when(bookRepository.existsById(testId)).thenReturn(true);
+        when(bookRepository.findById(testId)).thenReturn(Optional.of(testBook));
 
         assertDoesNotThrow(() -> bookService.deleteBook(testId));
-        verify(bookRepository, times(1)).deleteById(testId);
+        verify(bookRepository, times(1)).delete(testBook);
+        verify(autocompleteIndex).removeBook(testBook);
     }
 
     @Test
     void deleteBook_WithInvalidId_ShouldThrowResourceNotFoundException() {
-        when(bookRepository.existsById(testId)).thenReturn(false);
+        when(bookRepository.findById(testId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> bookService.deleteBook(testId));
     }
+
+    @Test
+    void exportBooks_ShouldStreamEachRowAndDetachIt() {
+        when(bookRepository.streamAll()).thenReturn(Stream.of(testBook));
+        List<BookResponseDTO> exported = new ArrayList<>();
+
+        bookService.exportBooks(exported::add);
+
+        assertEquals(1, exported.size());
+        assertEquals(testBook.getTitle(), exported.get(0).getTitle());
+        verify(entityManager).detach(testBook);
+    }
+
+    private static DataIntegrityViolationException integrityViolation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,213 @@
+package com.casava.library.service.serviceImpl;
+
+import com.casava.library.config.CacheConfig;
+import com.casava.library.dto.request.LoanRequestDTO;
+import com.casava.library.dto.request.UserRequestDTO;
+import com.casava.library.dto.response.LoanResponseDTO;
+import com.casava.library.dto.response.UserResponseDTO;
+import com.casava.library.entity.Book;
+import com.casava.library.entity.User;
+import com.casava.library.exception.PreconditionFailedException;
+import com.casava.library.index.UniqueKeyIndex;
+import com.casava.library.exception.ResourceConflictException;
+import com.casava.library.repository.BookRepository;
+import com.casava.library.repository.LoanRepository;
+import com.casava.library.repository.UserRepository;
+import com.casava.library.service.LoanService;
+import com.casava.library.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import({LoanServiceImpl.class, UserServiceImpl.class, UniqueKeyIndex.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoanServiceImplConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int COPIES = 50;
+    private static final int CHECKOUT_ATTEMPTS = 400;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    private UUID bookId;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        Book book = new Book();
+        book.setTitle("Release Day");
+        book.setAuthor("Popular Author");
+        book.setPublishedYear(2024);
+        book.setIsbn("9780000000001");
+        book.setCopiesAvailable(COPIES);
+        bookId = bookRepository.save(book).getId();
+
+        User user = new User();
+        user.setName("Reader");
+        user.setEmail("reader@example.com");
+        user.setMembershipDate(LocalDate.now().minusYears(1));
+        userId = userRepository.save(user).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void recordLoan_UnderConcurrentCheckouts_ShouldNeverLendMoreCopiesThanExist() throws Exception {
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Callable<LoanResponseDTO>> checkouts = new ArrayList<>();
+        for (int i = 0; i < CHECKOUT_ATTEMPTS; i++) {
+            checkouts.add(() -> {
+                try {
+                    return loanService.recordLoan(loanRequest());
+                } catch (ResourceConflictException ex) {
+                    conflicts.incrementAndGet();
+                    return null;
+                }
+            });
+        }
+
+        long succeeded = runConcurrently(checkouts).stream().filter(loan -> loan != null).count();
+
+        assertEquals(COPIES, succeeded);
+        assertEquals(CHECKOUT_ATTEMPTS - COPIES, conflicts.get());
+        assertEquals(0, bookRepository.findById(bookId).orElseThrow().getCopiesAvailable());
+        assertEquals(COPIES, loanRepository.count());
+    }
+
+    @Test
+    void returnLoan_UnderConcurrentReturnsOfSameLoan_ShouldReleaseOneCopy() throws Exception {
+        UUID loanId = loanService.recordLoan(loanRequest()).getId();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Callable<LoanResponseDTO>> returns = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            returns.add(() -> {
+                try {
+                    return loanService.returnLoan(loanId, LocalDate.now());
+                } catch (ResourceConflictException ex) {
+                    conflicts.incrementAndGet();
+                    return null;
+                }
+            });
+        }
+
+        long succeeded = runConcurrently(returns).stream().filter(loan -> loan != null).count();
+
+        assertEquals(1, succeeded);
+        assertEquals(THREADS - 1, conflicts.get());
+        assertEquals(COPIES, bookRepository.findById(bookId).orElseThrow().getCopiesAvailable());
+    }
+
+    @Test
+    void updateUser_WithSameIfMatchFromConcurrentEditors_ShouldLetExactlyOneWin() throws Exception {
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Callable<UserResponseDTO>> edits = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String name = "Editor " + i;
+            edits.add(() -> {
+                try {
+                    return userService.updateUser(userId, userRequest(name), 0L);
+                } catch (PreconditionFailedException | OptimisticLockingFailureException ex) {
+                    conflicts.incrementAndGet();
+                    return null;
+                }
+            });
+        }
+
+        List<UserResponseDTO> results = runConcurrently(edits);
+        UserResponseDTO winner = results.stream().filter(user -> user != null).findFirst().orElseThrow();
+
+        assertEquals(THREADS - 1, conflicts.get());
+        assertEquals(1, userRepository.findById(userId).orElseThrow().getVersion());
+        assertEquals(winner.getName(), userRepository.findById(userId).orElseThrow().getName());
+    }
+
+    @Test
+    void updateUser_UnderConcurrentEdits_ShouldCountEverySuccessfulWriteInTheVersion() throws Exception {
+        AtomicInteger exhausted = new AtomicInteger();
+        List<Callable<UserResponseDTO>> edits = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String name = "Editor " + i;
+            edits.add(() -> {
+                try {
+                    return userService.updateUser(userId, userRequest(name), null);
+                } catch (OptimisticLockingFailureException ex) {
+                    exhausted.incrementAndGet();
+                    return null;
+                }
+            });
+        }
+
+        long succeeded = runConcurrently(edits).stream().filter(user -> user != null).count();
+
+        assertEquals(THREADS, succeeded + exhausted.get());
+        assertTrue(succeeded > 0);
+        assertEquals(succeeded, userRepository.findById(userId).orElseThrow().getVersion());
+    }
+
+    private UserRequestDTO userRequest(String name) {
+        UserRequestDTO userRequestDTO = new UserRequestDTO();
+        userRequestDTO.setName(name);
+        userRequestDTO.setEmail("reader@example.com");
+        userRequestDTO.setMembershipDate(LocalDate.now().minusYears(1));
+        return userRequestDTO;
+    }
+
+    private LoanRequestDTO loanRequest() {
+        LoanRequestDTO loanRequestDTO = new LoanRequestDTO();
+        loanRequestDTO.setBookId(bookId);
+        loanRequestDTO.setUserId(userId);
+        loanRequestDTO.setLoanDate(LocalDate.now());
+        return loanRequestDTO;
+    }
+
+    private <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : executor.invokeAll(tasks, 60, TimeUnit.SECONDS)) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.casava.library.service.serviceImpl;
+
+import com.casava.library.config.CacheConfig;
+import com.casava.library.dto.response.CursorPageResponseDTO;
+import com.casava.library.dto.response.LoanResponseDTO;
+import com.casava.library.dto.response.OpenLoanCountDTO;
+import com.casava.library.dto.response.OverdueCountDTO;
+import com.casava.library.entity.Book;
+import com.casava.library.entity.Loan;
+import com.casava.library.entity.User;
+import com.casava.library.index.UniqueKeyIndex;
+import com.casava.library.service.LoanService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.casava.library.constant.Constants.LOAN_PERIOD_DAYS;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({LoanServiceImpl.class, UserServiceImpl.class, UniqueKeyIndex.class, CacheConfig.class})
+class LoanServiceImplOpenLoansTest {
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private UUID lateUserId;
+    private UUID punctualUserId;
+    private UUID popularBookId;
+
+    // The late user has 7 overdue and 2 current loans, the punctual user 2 overdue, 1 current and 3 returned.
+    @BeforeEach
+    void setUp() {
+        lateUserId = persistUser("late@example.com");
+        punctualUserId = persistUser("punctual@example.com");
+        popularBookId = persistBook(0);
+
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 7; i++) {
+            persistLoan(lateUserId, i < 3 ? popularBookId : persistBook(i + 1), today.minusDays(LOAN_PERIOD_DAYS + 1 + i), null);
+        }
+        persistLoan(lateUserId, persistBook(20), today.minusDays(LOAN_PERIOD_DAYS), null);
+        persistLoan(lateUserId, persistBook(21), today, null);
+        persistLoan(punctualUserId, popularBookId, today.minusDays(60), null);
+        persistLoan(punctualUserId, persistBook(22), today.minusDays(30), null);
+        persistLoan(punctualUserId, persistBook(23), today.minusDays(1), null);
+        for (int i = 0; i < 3; i++) {
+            persistLoan(punctualUserId, popularBookId, today.minusDays(90 + i), today.minusDays(80));
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getOpenLoans_Overdue_ShouldPageOldestFirstWithOneStatementPerPage() {
+        List<LoanResponseDTO> loans = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageResponseDTO<LoanResponseDTO> page = loanService.getOpenLoans(null, null, true, cursor, 4);
+            loans.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(9, loans.size());
+        assertEquals(LocalDate.now().minusDays(60), loans.get(0).getLoanDate());
+        for (int i = 1; i < loans.size(); i++) {
+            assertFalse(loans.get(i).getLoanDate().isBefore(loans.get(i - 1).getLoanDate()));
+        }
+        assertTrue(loans.stream().allMatch(loan -> loan.getReturnDate() == null));
+    }
+
+    @Test
+    void getOpenLoans_ByUserOrBook_ShouldOnlyReturnTheirOpenLoans() {
+        CursorPageResponseDTO<LoanResponseDTO> active = loanService.getOpenLoans(lateUserId, null, false, null, 20);
+        CursorPageResponseDTO<LoanResponseDTO> overdue = loanService.getOpenLoans(lateUserId, null, true, null, 20);
+        CursorPageResponseDTO<LoanResponseDTO> byBook = loanService.getOpenLoans(null, popularBookId, true, null, 20);
+
+        assertEquals(9, active.getSize());
+        assertEquals(7, overdue.getSize());
+        assertEquals(4, byBook.getSize());
+        assertTrue(byBook.getItems().stream().allMatch(loan -> loan.getBookId().equals(popularBookId)));
+    }
+
+    @Test
+    void getOpenLoans_WithUserAndBook_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> loanService.getOpenLoans(lateUserId, popularBookId, true, null, 20));
+    }
+
+    @Test
+    void countOpenLoans_ShouldSplitActiveAndOverdue() {
+        assertEquals(new OpenLoanCountDTO(12, 9), loanService.countOpenLoans(null, null));
+        assertEquals(new OpenLoanCountDTO(3, 2), loanService.countOpenLoans(punctualUserId, null));
+        assertEquals(new OpenLoanCountDTO(4, 4), loanService.countOpenLoans(null, popularBookId));
+    }
+
+    @Test
+    void getOverdueCounts_ShouldRankByOverdueLoansAcrossPages() {
+        CursorPageResponseDTO<OverdueCountDTO> firstUser = loanService.getOverdueCountsByUser(null, 1);
+        CursorPageResponseDTO<OverdueCountDTO> secondUser = loanService.getOverdueCountsByUser(firstUser.getNextCursor(), 1);
+        CursorPageResponseDTO<OverdueCountDTO> books = loanService.getOverdueCountsByBook(null, 20);
+
+        assertEquals(new OverdueCountDTO(lateUserId, 7), firstUser.getItems().get(0));
+        assertEquals(new OverdueCountDTO(punctualUserId, 2), secondUser.getItems().get(0));
+        assertFalse(secondUser.isHasNext());
+        assertEquals(new OverdueCountDTO(popularBookId, 4), books.getItems().get(0));
+        assertEquals(6, books.getSize());
+    }
+
+    private UUID persistUser(String email) {
+        User user = new User();
+        user.setName(email);
+        user.setEmail(email);
+        user.setMembershipDate(LocalDate.now().minusYears(1));
+        return testEntityManager.persist(user).getId();
+    }
+
+    private UUID persistBook(int number) {
+        Book book = new Book();
+        book.setTitle("Book " + number);
+        book.setAuthor("Author " + number);
+        book.setPublishedYear(2000);
+        book.setIsbn("978100000" + String.format("%04d", number));
+        book.setCopiesAvailable(1);
+        return testEntityManager.persist(book).getId();
+    }
+
+    private void persistLoan(UUID userId, UUID bookId, LocalDate loanDate, LocalDate returnDate) {
+        Loan loan = new Loan();
+        loan.setUserId(userId);
+        loan.setBookId(bookId);
+        loan.setLoanDate(loanDate);
+        loan.setReturnDate(returnDate);
+        testEntityManager.persist(loan);
+    }
+}
@@ -0,0 +1,151 @@
+package com.casava.library.service.serviceImpl;
+
+import com.casava.library.config.CacheConfig;
+import com.casava.library.dto.request.BatchLoanRequestDTO;
+import com.casava.library.dto.request.BatchReturnRequestDTO;
+import com.casava.library.dto.request.LoanRequestDTO;
+import com.casava.library.dto.response.BatchLoanResponseDTO;
+import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
+import com.casava.library.entity.Book;
+import com.casava.library.entity.Loan;
+import com.casava.library.entity.User;
+import com.casava.library.index.UniqueKeyIndex;
+import com.casava.library.service.LoanService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=100"
+})
+@Import({LoanServiceImpl.class, UserServiceImpl.class, UniqueKeyIndex.class, CacheConfig.class})
+class LoanServiceImplQueryCountTest {
+
+    private static final int LOAN_COUNT = 50;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Heavy Borrower");
+        user.setEmail("borrower@example.com");
+        user.setMembershipDate(LocalDate.now().minusYears(1));
+        userId = testEntityManager.persist(user).getId();
+
+        for (int i = 0; i < LOAN_COUNT; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setAuthor("Author " + i);
+            book.setPublishedYear(2000);
+            book.setIsbn("978000000" + String.format("%04d", i));
+            book.setCopiesAvailable(1);
+            testEntityManager.persist(book);
+
+            Loan loan = new Loan();
+            loan.setUserId(userId);
+            loan.setBookId(book.getId());
+            loan.setLoanDate(LocalDate.now().minusDays(i));
+            testEntityManager.persist(loan);
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getBooksLoanedByUser_ShouldIssueOneStatementPerPage() {
+        CursorPageResponseDTO<BookResponseDTO> firstPage = loanService.getBooksLoanedByUser(userId, null, 20);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(20, firstPage.getSize());
+        assertEquals("Book 0", firstPage.getItems().get(0).getTitle());
+        assertTrue(firstPage.isHasNext());
+
+        statistics.clear();
+        CursorPageResponseDTO<BookResponseDTO> secondPage =
+                loanService.getBooksLoanedByUser(userId, firstPage.getNextCursor(), 20);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals("Book 20", secondPage.getItems().get(0).getTitle());
+    }
+
+    @Test
+    void getBooksLoanedByUser_WithFullHistory_ShouldNotScaleStatementsWithLoans() {
+        CursorPageResponseDTO<BookResponseDTO> page = loanService.getBooksLoanedByUser(userId, null, LOAN_COUNT);
+
+        assertEquals(LOAN_COUNT, page.getSize());
+        assertFalse(page.isHasNext());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void recordAndReturnLoans_ShouldValidateWithSetQueriesAndBatchTheWrites() {
+        List<UUID> bookIds = testEntityManager.getEntityManager()
+                .createQuery("select b.id from Book b", UUID.class).setMaxResults(10).getResultList();
+        BatchLoanRequestDTO checkout = new BatchLoanRequestDTO();
+        checkout.setLoans(bookIds.stream().map(bookId -> {
+            LoanRequestDTO request = new LoanRequestDTO();
+            request.setUserId(userId);
+            request.setBookId(bookId);
+            request.setLoanDate(LocalDate.now());
+            return request;
+        }).toList());
+        statistics.clear();
+
+        BatchLoanResponseDTO loaned = loanService.recordLoans(checkout);
+        testEntityManager.flush();
+
+        assertEquals(bookIds.size(), loaned.getSucceeded());
+        // Two existence queries, one reservation per book and a single batched insert.
+        assertEquals(2 + bookIds.size() + 1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        BatchReturnRequestDTO checkin = new BatchReturnRequestDTO();
+        checkin.setLoanIds(loaned.getItems().stream().map(item -> item.getLoan().getId()).toList());
+        checkin.setReturnDate(LocalDate.now());
+
+        BatchLoanResponseDTO returned = loanService.returnLoans(checkin);
+        testEntityManager.flush();
+
+        assertEquals(bookIds.size(), returned.getSucceeded());
+        assertEquals(1 + 1 + bookIds.size(), statistics.getPrepareStatementCount());
+        // Bulk updates still move the versions the ETags are built from.
+        assertEquals(2L, testEntityManager.getEntityManager()
+                .createQuery("select b.version from Book b where b.id = :id", Long.class)
+                .setParameter("id", bookIds.get(0)).getSingleResult());
+        assertEquals(1L, testEntityManager.getEntityManager()
+                .createQuery("select l.version from Loan l where l.id = :id", Long.class)
+                .setParameter("id", checkin.getLoanIds().get(0)).getSingleResult());
+    }
+}
@@ -1,23 +1,37 @@
 package com.casava.library.service.serviceImpl;
 
+import com.casava.library.dto.request.BatchLoanRequestDTO;
+import com.casava.library.dto.request.BatchReturnRequestDTO;
 import com.casava.library.dto.request.LoanRequestDTO;
+import com.casava.library.dto.response.BatchLoanResponseDTO;
 import com.casava.library.dto.response.BookResponseDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
 import com.casava.library.dto.response.LoanResponseDTO;
 import com.casava.library.entity.Book;
 import com.casava.library.entity.Loan;
+import com.casava.library.exception.ResourceConflictException;
 import com.casava.library.exception.ResourceNotFoundException;
 import com.casava.library.repository.BookRepository;
 import com.casava.library.repository.LoanRepository;
 import com.casava.library.repository.UserRepository;
+import com.casava.library.repository.projection.LoanedBook;
+import com.casava.library.service.UserService;
+import com.casava.library.util.EncodedPage;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Stream;
 
+import static com.casava.library.constant.Constants.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -32,6 +46,15 @@ class LoanServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private LoanServiceImpl loanService;
 
@@ -71,14 +94,15 @@ class LoanServiceImplTest {
     }
 
     @Test
-    void getAllLoans_ShouldReturnListOfLoanResponseDTOs() {
-        when(loanRepository.findAll()).thenReturn(Collections.singletonList(testLoan));
+    void getAllLoans_ShouldReturnPageOfLoanResponseDTOs() {
+        when(loanRepository.findPageAfter(any(), eq(testUserId), any(), any(), any()))
+                .thenReturn(Collections.singletonList(testLoan));
 
-        List<LoanResponseDTO> result = loanService.getAllLoans();
+        CursorPageResponseDTO<LoanResponseDTO> result = loanService.getAllLoans(testUserId, null, null, null, 20);
 
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
-        assertEquals(testLoan.getId(), result.get(0).getId());
+        assertEquals(1, result.getSize());
+        assertEquals(testLoan.getId(), result.getItems().get(0).getId());
+        assertFalse(result.isHasNext());
     }
 
     @Test
@@ -100,26 +124,51 @@ class LoanServiceImplTest {
 
     @Test
     void recordLoan_WithValidData_ShouldReturnLoanResponseDTO() {
-        when(userRepository.existsById(testUserId)).thenReturn(true);
-        when(bookRepository.existsById(testBookId)).thenReturn(true);
-        when(loanRepository.save(any(Loan.class))).thenReturn(testLoan);
+        when(loanRepository.saveAndFlush(any(Loan.class))).thenReturn(testLoan);
+        when(bookRepository.reserveCopy(testBookId)).thenReturn(1);
 
         LoanResponseDTO result = loanService.recordLoan(testLoanRequestDTO);
 
         assertNotNull(result);
         assertEquals(testLoan.getId(), result.getId());
+        verify(bookRepository).reserveCopy(testBookId);
+    }
+
+    @Test
+    void recordLoan_ShouldEvictOnlyTheCachedPagesListingTheBook() {
+        CaffeineCache pages = new CaffeineCache(BOOK_PAGE_JSON_CACHE, Caffeine.newBuilder().build());
+        pages.put("listing", new EncodedPage(new byte[0], Set.of(testBookId, UUID.randomUUID())));
+        pages.put("other", new EncodedPage(new byte[0], Set.of(UUID.randomUUID())));
+        when(cacheManager.getCache(BOOK_PAGE_JSON_CACHE)).thenReturn(pages);
+        when(loanRepository.saveAndFlush(any(Loan.class))).thenReturn(testLoan);
+        when(bookRepository.reserveCopy(testBookId)).thenReturn(1);
+
+        loanService.recordLoan(testLoanRequestDTO);
+
+        assertNull(pages.get("listing"));
+        assertNotNull(pages.get("other"));
+    }
+
+    @Test
+    void recordLoan_WithNoCopiesAvailable_ShouldThrowResourceConflictException() {
+        when(loanRepository.saveAndFlush(any(Loan.class))).thenReturn(testLoan);
+        when(bookRepository.reserveCopy(testBookId)).thenReturn(0);
+        when(bookRepository.existsById(testBookId)).thenReturn(true);
+
+        assertThrows(ResourceConflictException.class, () -> loanService.recordLoan(testLoanRequestDTO));
     }
 
     @Test
     void recordLoan_WithInvalidUserId_ShouldThrowResourceNotFoundException() {
-        when(userRepository.existsById(testUserId)).thenReturn(false);
+        when(userService.getUserById(testUserId)).thenThrow(new ResourceNotFoundException("User not found"));
 
         assertThrows(ResourceNotFoundException.class, () -> loanService.recordLoan(testLoanRequestDTO));
     }
 
     @Test
     void recordLoan_WithInvalidBookId_ShouldThrowResourceNotFoundException() {
-        when(userRepository.existsById(testUserId)).thenReturn(true);
+        when(loanRepository.saveAndFlush(any(Loan.class))).thenReturn(testLoan);
+        when(bookRepository.reserveCopy(testBookId)).thenReturn(0);
         when(bookRepository.existsById(testBookId)).thenReturn(false);
 
         assertThrows(ResourceNotFoundException.class, () -> loanService.recordLoan(testLoanRequestDTO));
@@ -129,12 +178,23 @@ class LoanServiceImplTest {
     void returnLoan_WithValidIdAndDate_ShouldReturnUpdatedLoanResponseDTO() {
         LocalDate returnDate = LocalDate.now().plusDays(7);
         when(loanRepository.findById(testId)).thenReturn(Optional.of(testLoan));
-        when(loanRepository.save(any(Loan.class))).thenReturn(testLoan);
+        when(loanRepository.markReturned(testId, returnDate)).thenReturn(1);
 
         LoanResponseDTO result = loanService.returnLoan(testId, returnDate);
 
         assertNotNull(result);
         assertEquals(returnDate, result.getReturnDate());
+        verify(bookRepository).releaseCopy(testBookId);
+    }
+
+    @Test
+    void returnLoan_WhenAlreadyReturned_ShouldThrowResourceConflictException() {
+        LocalDate returnDate = LocalDate.now().plusDays(7);
+        when(loanRepository.findById(testId)).thenReturn(Optional.of(testLoan));
+        when(loanRepository.markReturned(testId, returnDate)).thenReturn(0);
+
+        assertThrows(ResourceConflictException.class, () -> loanService.returnLoan(testId, returnDate));
+        verify(bookRepository, never()).releaseCopy(any());
     }
 
     @Test
@@ -153,23 +213,118 @@ class LoanServiceImplTest {
     }
 
     @Test
-    void getBooksLoanedByUser_ShouldReturnListOfBookResponseDTOs() {
-        when(loanRepository.findByUserId(testUserId)).thenReturn(Collections.singletonList(testLoan));
-        when(bookRepository.findById(testBookId)).thenReturn(Optional.of(testBook));
+    void getBooksLoanedByUser_ShouldReturnPageOfBookResponseDTOs() {
+        when(loanRepository.findLoanedBooksBefore(eq(testUserId), any(), any(), any()))
+                .thenReturn(List.of(toLoanedBook(testLoan, testBook), toLoanedBook(testLoan, testBook)));
+
+        CursorPageResponseDTO<BookResponseDTO> result = loanService.getBooksLoanedByUser(testUserId, null, 1);
+
+        assertEquals(1, result.getSize());
+        assertEquals(testBook.getTitle(), result.getItems().get(0).getTitle());
+        assertTrue(result.isHasNext());
+
+        loanService.getBooksLoanedByUser(testUserId, result.getNextCursor(), 1);
+        verify(loanRepository).findLoanedBooksBefore(eq(testUserId), eq(testLoan.getLoanDate()), eq(testId), any());
+    }
+
+    @Test
+    void getBooksLoanedByUser_WithInvalidUserId_ShouldReturnEmptyPage() {
+        when(loanRepository.findLoanedBooksBefore(eq(testUserId), any(), any(), any())).thenReturn(List.of());
+
+        CursorPageResponseDTO<BookResponseDTO> result = loanService.getBooksLoanedByUser(testUserId, null, 20);
+
+        assertTrue(result.getItems().isEmpty());
+        assertFalse(result.isHasNext());
+    }
+
+    private LoanedBook toLoanedBook(Loan loan, Book book) {
+        return new LoanedBook(loan.getId(), loan.getLoanDate(), book.getId(), book.getTitle(), book.getAuthor(),
+                book.getPublishedYear(), book.getIsbn(), book.getCopiesAvailable());
+    }
+
+    @Test
+    void exportLoans_ShouldStreamEachRowAndDetachIt() {
+        when(loanRepository.streamAll()).thenReturn(Stream.of(testLoan));
+        List<LoanResponseDTO> exported = new ArrayList<>();
 
-        List<BookResponseDTO> result = loanService.getBooksLoanedByUser(testUserId);
+        loanService.exportLoans(exported::add);
 
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
-        assertEquals(testBook.getTitle(), result.get(0).getTitle());
+        assertEquals(1, exported.size());
+        assertEquals(testLoan.getId(), exported.get(0).getId());
+        verify(entityManager).detach(testLoan);
     }
 
     @Test
-    void getBooksLoanedByUser_WithInvalidUserId_ShouldReturnEmptyList() {
-        when(loanRepository.findByUserId(testUserId)).thenReturn(List.of());
+    void recordLoans_PerItem_ShouldReportUnknownIdsAndExhaustedCopiesWithoutFailingTheBatch() {
+        UUID unknownBookId = UUID.randomUUID();
+        when(userRepository.findExistingIds(any())).thenReturn(Set.of(testUserId));
+        when(bookRepository.findExistingIds(any())).thenReturn(Set.of(testBookId));
+        when(bookRepository.reserveCopies(testBookId, 2)).thenReturn(0);
+        when(bookRepository.reserveCopy(testBookId)).thenReturn(1, 0);
+        when(loanRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BatchLoanResponseDTO result = loanService.recordLoans(
+                batchLoans(false, testLoanRequestDTO, loanRequest(unknownBookId), loanRequest(testBookId)));
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertTrue(result.getItems().get(0).isSuccess());
+        assertEquals(BOOK_NOT_FOUND_MESSAGE, result.getItems().get(1).getMessage());
+        assertEquals(NO_COPIES_AVAILABLE_MESSAGE, result.getItems().get(2).getMessage());
+        verify(loanRepository).saveAll(argThat(loans -> ((Collection<?>) loans).size() == 1));
+    }
 
-        List<BookResponseDTO> result = loanService.getBooksLoanedByUser(testUserId);
+    @Test
+    void recordLoans_Atomic_ShouldThrowOnFirstFailedItem() {
+        when(userRepository.findExistingIds(any())).thenReturn(Set.of(testUserId));
+        when(bookRepository.findExistingIds(any())).thenReturn(Set.of(testBookId));
+        when(bookRepository.reserveCopies(testBookId, 2)).thenReturn(0);
+
+        BatchLoanRequestDTO batch = batchLoans(true, testLoanRequestDTO, loanRequest(testBookId));
+
+        ResourceConflictException ex = assertThrows(ResourceConflictException.class, () -> loanService.recordLoans(batch));
+        assertTrue(ex.getMessage().startsWith("Item 0"));
+        verify(bookRepository, never()).reserveCopy(any());
+        verify(loanRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void returnLoans_ShouldMarkAllReturnedAndReleaseCopiesPerBook() {
+        Loan returned = new Loan();
+        returned.setId(UUID.randomUUID());
+        returned.setBookId(testBookId);
+        returned.setLoanDate(LocalDate.now());
+        returned.setReturnDate(LocalDate.now());
+        UUID missingId = UUID.randomUUID();
+        when(loanRepository.findAllForUpdate(any())).thenReturn(List.of(testLoan, returned));
+        LocalDate returnDate = LocalDate.now().plusDays(7);
+
+        BatchReturnRequestDTO batch = new BatchReturnRequestDTO();
+        batch.setLoanIds(List.of(testId, returned.getId(), missingId, testId));
+        batch.setReturnDate(returnDate);
+        BatchLoanResponseDTO result = loanService.returnLoans(batch);
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(returnDate, result.getItems().get(0).getLoan().getReturnDate());
+        assertEquals(LOAN_ALREADY_RETURNED_MESSAGE, result.getItems().get(1).getMessage());
+        assertEquals(LOAN_NOT_FOUND_MESSAGE, result.getItems().get(2).getMessage());
+        assertEquals(LOAN_ALREADY_RETURNED_MESSAGE, result.getItems().get(3).getMessage());
+        verify(loanRepository).markAllReturned(Set.of(testId), returnDate);
+        verify(bookRepository).releaseCopies(testBookId, 1);
+    }
+
+    private LoanRequestDTO loanRequest(UUID bookId) {
+        LoanRequestDTO request = new LoanRequestDTO();
+        request.setUserId(testUserId);
+        request.setBookId(bookId);
+        request.setLoanDate(LocalDate.now());
+        return request;
+    }
 
-        assertTrue(result.isEmpty());
+    private BatchLoanRequestDTO batchLoans(boolean atomic, LoanRequestDTO... loans) {
+        BatchLoanRequestDTO batch = new BatchLoanRequestDTO();
+        batch.setLoans(List.of(loans));
+        batch.setAtomic(atomic);
+        return batch;
     }
 }
\ No newline at end of file
@@ -1,11 +1,14 @@
 package com.casava.library.service.serviceImpl;
 
 import com.casava.library.dto.request.UserRequestDTO;
+import com.casava.library.dto.response.CursorPageResponseDTO;
 import com.casava.library.dto.response.UserResponseDTO;
 import com.casava.library.entity.User;
 import com.casava.library.exception.ResourceAlreadyExistException;
 import com.casava.library.exception.ResourceNotFoundException;
+import com.casava.library.index.UniqueKeyIndex;
 import com.casava.library.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -14,6 +17,7 @@ import org.mockito.MockitoAnnotations;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,6 +27,12 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UniqueKeyIndex uniqueKeyIndex;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -48,14 +58,14 @@ class UserServiceImplTest {
     }
 
     @Test
-    void getAllUsers_ShouldReturnListOfUserResponseDTOs() {
-        when(userRepository.findAll()).thenReturn(Collections.singletonList(testUser));
+    void getAllUsers_ShouldReturnPageOfUserResponseDTOs() {
+        when(userRepository.findPageAfter(any(), any(), any())).thenReturn(Collections.singletonList(testUser));
 
-        List<UserResponseDTO> result = userService.getAllUsers();
+        CursorPageResponseDTO<UserResponseDTO> result = userService.getAllUsers(null, null, 20);
 
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
-        assertEquals(testUser.getName(), result.get(0).getName());
+        assertEquals(1, result.getSize());
+        assertEquals(testUser.getName(), result.getItems().get(0).getName());
+        assertFalse(result.isHasNext());
     }
 
     @Test
@@ -75,6 +85,14 @@ class UserServiceImplTest {
         assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(testId));
     }
 
+    @Test
+    void getUserById_ShouldCarryTheVersionOfTheRowRead() {
+        testUser.setVersion(3L);
+        when(userRepository.findById(testId)).thenReturn(Optional.of(testUser));
+
+        assertEquals(3L, userService.getUserById(testId).getVersion());
+    }
+
     @Test
     void addUser_WithValidData_ShouldReturnUserResponseDTO() {
         when(userRepository.existsByEmail(anyString())).thenReturn(false);
@@ -88,17 +106,29 @@ class UserServiceImplTest {
 
     @Test
     void addUser_WithExistingEmail_ShouldThrowResourceAlreadyExistException() {
+        when(uniqueKeyIndex.mightContainEmail(anyString())).thenReturn(true);
         when(userRepository.existsByEmail(anyString())).thenReturn(true);
 
         assertThrows(ResourceAlreadyExistException.class, () -> userService.addUser(testUserRequestDTO));
     }
 
+    @Test
+    void addUser_WithEmailUnknownToIndex_ShouldSkipExistenceQuery() {
+        when(uniqueKeyIndex.mightContainEmail(anyString())).thenReturn(false);
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        userService.addUser(testUserRequestDTO);
+
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(uniqueKeyIndex).addEmail(testUser.getEmail());
+    }
+
     @Test
     void updateUser_WithValidIdAndData_ShouldReturnUpdatedUserResponseDTO() {
         when(userRepository.findById(testId)).thenReturn(Optional.of(testUser));
         when(userRepository.save(any(User.class))).thenReturn(testUser);
 
-        UserResponseDTO result = userService.updateUser(testId, testUserRequestDTO);
+        UserResponseDTO result = userService.updateUser(testId, testUserRequestDTO, null);
 
         assertNotNull(result);
         assertEquals(testUserRequestDTO.getName(), result.getName());
@@ -108,7 +138,7 @@ class UserServiceImplTest {
     void updateUser_WithInvalidId_ShouldThrowResourceNotFoundException() {
         when(userRepository.findById(testId)).thenReturn(Optional.empty());
 
-        assertThrows(ResourceNotFoundException.class, () -> userService.updateUser(testId, testUserRequestDTO));
+        assertThrows(ResourceNotFoundException.class, () -> userService.updateUser(testId, testUserRequestDTO, null));
     }
 
     @Test
@@ -125,4 +155,16 @@ class UserServiceImplTest {
 
         assertThrows(ResourceNotFoundException.class, () -> userService.deleteUser(testId));
     }
+
+    @Test
+    void exportUsers_ShouldStreamEachRowAndDetachIt() {
+        when(userRepository.streamAll()).thenReturn(Stream.of(testUser));
+        List<UserResponseDTO> exported = new ArrayList<>();
+
+        userService.exportUsers(exported::add);
+
+        assertEquals(1, exported.size());
+        assertEquals(testUser.getName(), exported.get(0).getName());
+        verify(entityManager).detach(testUser);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.casava.library.util;
+
+import com.casava.library.advice.InternalCode;
+import com.casava.library.dto.response.ApiResponseDTO;
+import com.casava.library.dto.response.BookResponseDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static com.casava.library.constant.Constants.SUCCESS_MESSAGE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonEnvelopeTest {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void success_ShouldMatchSerializedApiResponse() throws Exception {
+        BookResponseDTO book = new BookResponseDTO();
+        book.setId(UUID.randomUUID());
+        book.setTitle("Crime and Punishment \"Преступление\"");
+        book.setAuthor("Fyodor Dostoevsky");
+        book.setPublishedYear(1866);
+
+        JsonNode spliced = objectMapper.readTree(JsonEnvelope.success(objectMapper.writeValueAsBytes(book)));
+        JsonNode serialized = objectMapper.valueToTree(
+                new ApiResponseDTO<>(true, SUCCESS_MESSAGE, InternalCode.CASAVA_LIB_001, book));
+
+        assertTrue(spliced.get("timestamp").asText().matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}"));
+        ((ObjectNode) spliced).remove("timestamp");
+        ((ObjectNode) serialized).remove("timestamp");
+        assertEquals(serialized, spliced);
+    }
+
+    @AfterEach
+    void restoreClock() {
+        ResponseClock.useClock(Clock.systemDefaultZone());
+    }
+
+    @Test
+    void timestamp_WithinTheSameSecond_ShouldBeShared() {
+        ResponseClock.useClock(Clock.fixed(Instant.parse("2025-01-08T10:15:30.250Z"), ZoneOffset.UTC));
+
+        String first = ResponseClock.timestamp();
+        String second = ResponseClock.timestamp();
+
+        assertEquals("2025-01-08T10:15:30", first);
+        assertSame(first, second);
+    }
+}
@@ -0,0 +1,70 @@
+package com.casava.library.util;
+
+import com.casava.library.util.PrefixIndex.Entry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTest {
+
+    @Test
+    void top_ShouldReturnMatchesByWeightIgnoringCase() {
+        PrefixIndex index = PrefixIndex.build(List.of(
+                new Entry("Dune", 5, null),
+                new Entry("dune Messiah", 9, null),
+                new Entry("Dracula", 20, null),
+                new Entry("Émile", 3, null),
+                new Entry("Dun", 1, null)));
+
+        List<String> titles = index.top("DUN", 10, entry -> true).stream().map(Entry::text).toList();
+
+        assertEquals(List.of("dune Messiah", "Dune", "Dun"), titles);
+        assertEquals("Émile", index.top("é", 10, entry -> true).get(0).text());
+        assertTrue(index.top("x", 10, entry -> true).isEmpty());
+    }
+
+    @Test
+    void top_ShouldSkipFilteredEntriesAndStillFillTheLimit() {
+        UUID hidden = UUID.randomUUID();
+        PrefixIndex index = PrefixIndex.build(List.of(
+                new Entry("The Hobbit", 50, hidden),
+                new Entry("The Road", 10, UUID.randomUUID()),
+                new Entry("The Stand", 20, UUID.randomUUID())));
+
+        List<Entry> top = index.top("the ", 2, entry -> !hidden.equals(entry.id()));
+
+        assertEquals(List.of("The Stand", "The Road"), top.stream().map(Entry::text).toList());
+    }
+
+    @Test
+    void top_OnLargeIndex_ShouldMatchBruteForceRanking() {
+        Random random = new Random(42);
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            entries.add(new Entry(Integer.toString(random.nextInt(1_000_000), 36), random.nextInt(1000), UUID.randomUUID()));
+        }
+        PrefixIndex index = PrefixIndex.build(entries);
+
+        for (String prefix : List.of("a", "1", "zz", "k3")) {
+            List<Integer> expected = entries.stream().filter(entry -> entry.text().startsWith(prefix))
+                    .map(Entry::weight).sorted(Comparator.reverseOrder()).limit(10).toList();
+            List<Integer> actual = index.top(prefix, 10, entry -> true).stream().map(Entry::weight).toList();
+            assertEquals(expected, actual, prefix);
+        }
+    }
+
+    @Test
+    void weightOf_ShouldFindEntryByTextAndId() {
+        UUID id = UUID.randomUUID();
+        PrefixIndex index = PrefixIndex.build(List.of(new Entry("Emma", 4, UUID.randomUUID()), new Entry("Emma", 8, id)));
+
+        assertEquals(8, index.weightOf("emma", id));
+        assertEquals(0, index.weightOf("Persuasion", id));
+    }
+}
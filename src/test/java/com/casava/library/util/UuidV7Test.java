@@ -0,0 +1,63 @@
+package com.casava.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7Test {
+
+    @Test
+    void next_ShouldSetVersionVariantAndCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long timestamp = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(timestamp >= before && timestamp <= after + 1, "timestamp " + timestamp);
+    }
+
+    @Test
+    void next_ShouldIncreaseStrictlyInDatabaseOrderEvenWithinOneMillisecond() {
+        UUID previous = UuidV7.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7.next();
+            // PostgreSQL and H2 compare uuids as unsigned bytes.
+            int high = Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits());
+            assertTrue(high > 0, next + " does not sort after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void next_FromConcurrentThreads_ShouldNeverRepeat() throws Exception {
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        List<Future<?>> writers = new ArrayList<>();
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                writers.add(executor.submit(() -> {
+                    Set<UUID> local = new HashSet<>();
+                    for (int i = 0; i < 20_000; i++) {
+                        local.add(UuidV7.next());
+                    }
+                    seen.addAll(local);
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        }
+
+        assertEquals(8 * 20_000, seen.size());
+    }
+}